@@ -0,0 +1,110 @@
+import bench.Workload;
+
+/*
+ * This class runs the operations the benchmarks measure on the solver classes, which it can see from the default package.
+ * The probe used by propagate and forwardCheck assigns the smallest value left by root arc consistency to the variable with the
+ * most neighbours among those not fixed, so the same decision is propagated on every call.
+ */
+
+public class SolverWorkload implements Workload {
+    private String fileName;   //instance file
+    private MAC mac;   //solver arc consistent at the root
+    private FC fc;   //solver at the root
+    private int[] arcs;   //every arc as a pair of consecutive entries, the variable revised then the other variable
+    private Trail trail;   //trail of pruneAndUndo
+    private Domain[] domains;   //domains pruned by pruneAndUndo
+    private int probeVar;   //variable assigned by the probes
+    private int probeVal;   //value assigned by the probes
+
+    public void load(String fileName) {
+        this.fileName = fileName;
+        BinaryCSP csp = new BinaryCSPReader().readBinaryCSP(fileName);
+
+        if (csp == null) {
+            throw new IllegalArgumentException("Cannot read " + fileName);
+        }
+
+        mac = new MAC(csp);
+
+        if (!mac.propagate()) {
+            throw new IllegalArgumentException(fileName + " is not arc consistent, revising it would wipe out a domain");
+        }
+
+        fc = new FC(csp);
+        int n = csp.getNoVariables();
+        int noArcs = 0;
+        int totalValues = 0;
+        domains = new Domain[n];
+        probeVar = -1;
+
+        for (int x = 0; x < n; x++) {
+            noArcs += csp.getNeighbours(x).length;
+            domains[x] = csp.getDomain(x);
+            totalValues += domains[x].size();
+
+            if (mac.getDomain(x).size() > 1 && (probeVar == -1 || csp.getNeighbours(x).length > csp.getNeighbours(probeVar).length)) {
+                probeVar = x;
+            }
+        }
+
+        if (probeVar == -1) {
+            throw new IllegalArgumentException(fileName + " is solved by arc consistency, there is no decision to probe");
+        }
+
+        probeVal = mac.getDomain(probeVar).min();
+        arcs = new int[2 * noArcs];
+        int k = 0;
+
+        for (int x = 0; x < n; x++) {
+            for (int y : csp.getNeighbours(x)) {
+                arcs[k++] = x;
+                arcs[k++] = y;
+            }
+        }
+
+        trail = new Trail(totalValues);
+    }
+
+    public int reviseArcs() {
+        int changed = 0;
+
+        for (int k = 0; k < arcs.length; k += 2) {
+            if (mac.revise(arcs[k], arcs[k + 1])) {
+                changed++;
+            }
+        }
+
+        return changed;
+    }
+
+    public boolean propagate() {
+        boolean consistent = mac.probe(probeVar, probeVal);
+        mac.undoProbe(probeVar, probeVal);
+        return consistent;
+    }
+
+    public boolean forwardCheck() {
+        boolean consistent = fc.probe(probeVar, probeVal);
+        fc.undoProbe(probeVar, probeVal);
+        return consistent;
+    }
+
+    public int pruneAndUndo() {
+        int pruned = 0;
+        trail.mark();
+
+        for (Domain domain : domains) {
+            for (int val = domain.next(domain.min()); val != Domain.NONE; val = domain.next(val)) {
+                trail.prune(domain, val);
+                pruned++;
+            }
+        }
+
+        trail.undo();
+        return pruned;
+    }
+
+    public Object read() {
+        return new BinaryCSPReader().readBinaryCSP(fileName);
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * This class benchmarks the inner loops of the search on the bundled instances, each call leaving the solvers as it found them:
+ * revise: MAC.revise on every arc at the root fixpoint, the common case of a revision that prunes nothing
+ * propagate: MAC.pushCurrentState, one decision propagated by MAC.macAC3 and the level undone
+ * reviseFutureArcs: the same decision forward checked by FC.reviseFutureArcs and undone
+ * pruneAndUndo: a trail level holding every value but one of each domain, opened and undone as pushCurrentState/undoPruning do
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InnerLoopBenchmark {
+    @Param({"8Queens", "20Queens", "FinnishSudoku", "Sudoku4", "langfords2_9", "langfords3_10"})
+    public String instance;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = Workload.create(instance);
+    }
+
+    @Benchmark
+    public int revise() {
+        return workload.reviseArcs();
+    }
+
+    @Benchmark
+    public boolean propagate() {
+        return workload.propagate();
+    }
+
+    @Benchmark
+    public boolean reviseFutureArcs() {
+        return workload.forwardCheck();
+    }
+
+    @Benchmark
+    public int pruneAndUndo() {
+        return workload.pruneAndUndo();
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import java.io.File;
+
+/*
+ * This interface is the set of solver operations the benchmarks measure.
+ * JMH does not accept benchmarks in the default package, and a class in a named package cannot refer to the solver classes there,
+ * so the benchmarks reach the solver through this interface, implemented by SolverWorkload in the default package and created by
+ * name. It has a single implementation, so the JIT inlines the calls and they cost nothing against the operations measured.
+ */
+
+public interface Workload {
+    //directories searched for the instances when the csp.instances property is not set, from the root or from benchmarks/
+    String[] INSTANCE_DIRECTORIES = {"src/instances", "../src/instances"};
+
+    //the workload of a bundled instance, given by name without the .csp extension
+    static Workload create(String instance) {
+        String directory = System.getProperty("csp.instances");
+
+        for (int i = 0; directory == null && i < INSTANCE_DIRECTORIES.length; i++) {
+            if (new File(INSTANCE_DIRECTORIES[i]).isDirectory()) {
+                directory = INSTANCE_DIRECTORIES[i];
+            }
+        }
+
+        if (directory == null) {
+            throw new IllegalStateException("Instances not found, run from the project root or set -Dcsp.instances=<dir>");
+        }
+
+        try {
+            Workload workload = (Workload) Class.forName("SolverWorkload").getDeclaredConstructor().newInstance();
+            workload.load(new File(directory, instance + ".csp").getPath());
+            return workload;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("SolverWorkload is missing from the classpath", e);
+        }
+    }
+
+    //reads the instance and sets up the solvers, with MAC made arc consistent at the root
+    void load(String fileName);
+
+    //revises every arc once with MAC at the root fixpoint, where nothing is pruned, returns the number of revisions that pruned
+    int reviseArcs();
+
+    //assigns the probe value, runs AC3 to a fixpoint on a new level of the trail and undoes it, returns false on a wipe-out
+    boolean propagate();
+
+    //assigns the probe value, forward checks it on a new level of the trail and undoes it, returns false on a wipe-out
+    boolean forwardCheck();
+
+    //opens a level of the trail, prunes every value but the smallest of each domain and undoes the level, returns the values pruned
+    int pruneAndUndo();
+
+    //reads the instance file again
+    Object read();
+}
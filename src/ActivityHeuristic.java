@@ -0,0 +1,57 @@
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * This class orders the variables by domain size divided by activity.
+ * The activity of a variable grows every time propagation prunes its domain and decays at every node, so the variables that
+ * were pruned recently and often are branched on first. Rather than decaying every activity at each node, the amount added
+ * grows instead, and all the activities are scaled down together when it gets too large.
+ */
+
+public class ActivityHeuristic extends ScoredHeuristic {
+    private static final double DECAY = 0.95;   //fraction of its activity a variable keeps at each node
+    private static final double LIMIT = 1e100;   //activity at which everything is scaled down
+
+    private double[] activities;   //activity of each variable
+    private double increment = 1;   //amount added to an activity by one pruning
+
+    public void initialise(BinaryCSP csp, List<Variable> variables) {
+        super.initialise(csp, variables);
+        activities = new double[variables.size()];
+        Arrays.fill(activities, 1);
+    }
+
+    protected double score(int var) {
+        return domains[var].size() / activities[var];
+    }
+
+    //decays every activity before choosing the variable of a new node
+    public int select() {
+        increment /= DECAY;
+
+        if (increment > LIMIT) {
+            rescale();
+        }
+
+        return super.select();
+    }
+
+    public void pruned(int var) {
+        activities[var] += increment;
+        changed(var);
+
+        if (activities[var] > LIMIT) {
+            rescale();
+        }
+    }
+
+    //scales every activity and the increment down by the same factor, which keeps the order but rescores every variable
+    private void rescale() {
+        for (int i = 0; i < activities.length; i++) {
+            activities[i] /= LIMIT;
+        }
+
+        increment /= LIMIT;
+        changedAll();
+    }
+}
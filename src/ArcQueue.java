@@ -0,0 +1,91 @@
+/*
+ * This class is the worklist used by AC3 in MAC.
+ * Entries are ints in a ring buffer with a bitset marking what is already queued, so adding, polling and
+ * the duplicate check are O(1) and allocation free.
+ * In arc mode an entry is the arc (x, y) encoded as x * n + y, meaning the domain of x has to be revised against y.
+ * In variable mode an entry is a variable whose domain changed, meaning every arc towards it has to be revised,
+ * which keeps the queue small when variables have many neighbours.
+ */
+
+public class ArcQueue {
+    private final int noVariables;   //number of variables, used to encode arcs
+    private final boolean variableBased;   //whether the queue holds variables instead of arcs
+    private final int[] ring;   //queued entries
+    private final long[] inQueue;   //bitset of the entries currently queued
+    private int head = 0;   //position of the next entry to poll
+    private int size = 0;   //number of queued entries
+
+    //the capacity is the number of distinct entries that can be queued at once
+    public ArcQueue(int noVariables, int noArcs, boolean variableBased) {
+        this.noVariables = noVariables;
+        this.variableBased = variableBased;
+        int capacity = variableBased ? noVariables : Math.max(noArcs, 1);
+        int entries = variableBased ? noVariables : noVariables * noVariables;
+        ring = new int[capacity];
+        inQueue = new long[(entries + 63) >>> 6];
+    }
+
+    public boolean isVariableBased() {
+        return variableBased;
+    }
+
+    //adds the arc (firstVar, secondVar) unless it is already queued
+    public void addArc(int firstVar, int secondVar) {
+        add(firstVar * noVariables + secondVar);
+    }
+
+    //adds a variable whose domain changed unless it is already queued
+    public void addVariable(int var) {
+        add(var);
+    }
+
+    private void add(int entry) {
+        long bit = 1L << entry;
+
+        if ((inQueue[entry >>> 6] & bit) != 0) {
+            return;
+        }
+
+        inQueue[entry >>> 6] |= bit;
+        int tail = head + size;
+        ring[tail >= ring.length ? tail - ring.length : tail] = entry;
+        size++;
+    }
+
+    //removes and returns the oldest entry
+    public int poll() {
+        int entry = ring[head];
+
+        if (++head == ring.length) {
+            head = 0;
+        }
+
+        size--;
+        inQueue[entry >>> 6] &= ~(1L << entry);
+        return entry;
+    }
+
+    //first variable of an arc entry
+    public int firstVar(int entry) {
+        return entry / noVariables;
+    }
+
+    //second variable of an arc entry
+    public int secondVar(int entry) {
+        return entry % noVariables;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        while (size > 0) {
+            poll();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * This class solves many instances without any prompt, one job per instance, several at a time on a bounded pool of threads.
+ * Every job reads its instance, preprocesses it and searches it with its own solver, so jobs share nothing, and prints one JSON
+ * line as soon as it finishes: the status (SAT, UNSAT, TIME_LIMIT, NODE_LIMIT or ERROR), the counters and the solution if any.
+ * The time limit runs from the start of each job, so it covers reading, symmetry breaking and preprocessing as well as the
+ * search, and the node limit applies to the search. A job that reaches either is cancelled, so a hard instance gives up its
+ * thread to the next job instead of holding up the batch.
+ * The ordering, restart, preprocessing and symmetry breaking options are those of Solver, and apply to every job.
+ */
+
+public class BatchSolver {
+    //the algorithms a batch can run, as in the menu of Solver
+    private static final List<String> ALGORITHMS = Arrays.asList("fc", "fc_cbj", "mac", "mac_ac3", "mac_ac3rm", "mac_ac2001");
+
+    private String algorithm = "mac";   //algorithm run on every instance
+    private int threads = Runtime.getRuntime().availableProcessors();   //jobs run at the same time
+    private long timeLimit = 0;   //seconds a job may take, 0 for no limit
+    private long nodeLimit = 0;   //nodes the search of a job may visit, 0 for no limit
+    private List<File> instances = new ArrayList<>();   //instances in the order given, directories expanded
+    private ScheduledExecutorService watchdog;   //cancels the searches that reach the time limit
+    private int[] counts = new int[Status.values().length];   //jobs finished with each status
+
+    private enum Status {
+        SAT, UNSAT, TIME_LIMIT, NODE_LIMIT, ERROR
+    }
+
+    //what the watchdog stops when a job reaches the time limit: its preprocessing while it runs, then its search
+    private static class Job {
+        private boolean timedOut = false;
+        private Preprocessing preprocessing;
+        private SearchAlgorithm solver;
+
+        synchronized void timeOut() {
+            timedOut = true;
+
+            if (preprocessing != null) {
+                preprocessing.cancel();
+            }
+
+            if (solver != null) {
+                solver.cancel();
+            }
+        }
+
+        //the pipeline about to run, cancelled at once if the time is already up
+        synchronized void started(Preprocessing preprocessing) {
+            this.preprocessing = preprocessing;
+
+            if (timedOut) {
+                preprocessing.cancel();
+            }
+        }
+
+        //the solver about to search, cancelled at once if the time is already up
+        synchronized void started(SearchAlgorithm solver) {
+            this.solver = solver;
+
+            if (timedOut) {
+                solver.cancel();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        BatchSolver batch = new BatchSolver();
+
+        try {
+            batch.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        try {
+            batch.run();
+        } catch (InterruptedException e) {
+            System.err.println("Batch interrupted");
+        }
+    }
+
+    private void parse(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value after " + args[i]);
+                }
+
+                parseFlag(args[i], args[++i]);
+            } else if (new File(args[i]).exists()) {
+                addInstances(new File(args[i]));
+            } else if (!Solver.parseOption(args[i])) {
+                throw new IllegalArgumentException("Unknown option or missing file: " + args[i]);
+            }
+        }
+
+        if (Solver.metrics != null || Solver.profile) {
+            throw new IllegalArgumentException("metrics and profile report on a single search and cannot be used in batch mode");
+        }
+
+        if (Solver.lexLeader && Solver.dynamicSymmetryBreaking) {
+            throw new IllegalArgumentException("lex_leader and sbds cannot be combined");
+        }
+
+        if (instances.isEmpty()) {
+            throw new IllegalArgumentException("No instances given");
+        }
+    }
+
+    private void parseFlag(String flag, String value) throws IOException {
+        try {
+            switch (flag) {
+                case "--algorithm":
+                    if (!ALGORITHMS.contains(value)) {
+                        throw new IllegalArgumentException("Unknown algorithm: " + value + ", expected one of " + ALGORITHMS);
+                    }
+
+                    algorithm = value;
+                    break;
+                case "--threads":
+                    threads = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "--time-limit":
+                    timeLimit = Long.parseLong(value);
+                    break;
+                case "--node-limit":
+                    nodeLimit = Long.parseLong(value);
+                    break;
+                case "--list":   //a file of instance paths, one per line
+                    for (String line : Files.readAllLines(new File(value).toPath())) {
+                        if (!line.trim().isEmpty()) {
+                            addInstances(new File(line.trim()));
+                        }
+                    }
+
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + flag);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number after " + flag + ": " + value);
+        }
+    }
+
+    //adds a csp file, or every csp file of a directory in name order
+    private void addInstances(File file) {
+        if (!file.isDirectory()) {
+            instances.add(file);
+            return;
+        }
+
+        File[] files = file.listFiles((d, name) -> name.endsWith(".csp") || name.endsWith(".cspb"));
+
+        if (files != null) {
+            Arrays.sort(files);
+            instances.addAll(Arrays.asList(files));
+        }
+    }
+
+    //runs every job and waits for the last one, then reports the statuses on stderr so stdout only holds the JSON lines
+    private void run() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (File instance : instances) {
+                pool.submit(() -> solve(instance));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        watchdog.shutdownNow();
+        StringBuilder summary = new StringBuilder(instances.size() + " instances:");
+
+        for (Status status : Status.values()) {
+            summary.append(" ").append(counts[status.ordinal()]).append(" ").append(status);
+        }
+
+        System.err.println(summary);
+    }
+
+    //runs one job and prints its line
+    private void solve(File instance) {
+        long startTime = System.nanoTime();
+        Job job = new Job();
+        ScheduledFuture<?> timer = (timeLimit > 0) ? watchdog.schedule(job::timeOut, timeLimit, TimeUnit.SECONDS) : null;
+        SearchAlgorithm solver = null;
+        Status status;
+        String error = null;
+
+        try {
+            solver = newSolver(instance, job);
+            solver.setNodeLimit(nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE);
+            job.started(solver);
+
+            //the search decides, a timer firing once it has finished cannot turn a proof into a time out
+            if (solver.solve()) {
+                status = Status.SAT;
+            } else if (!solver.isStopped()) {
+                status = Status.UNSAT;
+            } else {
+                status = (nodeLimit > 0 && solver.getNodesVisited() >= nodeLimit) ? Status.NODE_LIMIT : Status.TIME_LIMIT;
+            }
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            status = Status.ERROR;
+            error = e.toString();
+        }
+
+        if (timer != null) {
+            timer.cancel(false);
+        }
+
+        print(instance, status, solver, (System.nanoTime() - startTime) / 1_000_000, error);
+    }
+
+    //reads, preprocesses and breaks the symmetries of an instance, and builds the solver that searches it
+    private SearchAlgorithm newSolver(File instance, Job job) throws IOException {
+        BinaryCSP csp = new BinaryCSPReader().read(instance.getPath());   //a malformed file throws, its cause goes into the error
+        List<Symmetry> group = null;
+
+        if (Solver.lexLeader || Solver.dynamicSymmetryBreaking) {
+            group = Symmetry.read(Symmetry.fileFor(instance.getPath()), csp);
+
+            if (Solver.lexLeader) {
+                csp = LexLeader.post(csp, group);
+                group = null;
+            }
+        }
+
+        if (!Solver.preprocessing.isEmpty()) {
+            Preprocessing preprocessing = Solver.preprocessing.copy();
+            job.started(preprocessing);
+            csp = preprocessing.run(csp);
+        }
+
+        SearchAlgorithm solver;
+
+        switch (algorithm) {
+            case "fc":
+            case "fc_cbj":
+                FC fc = Solver.newFC(csp);
+                fc.setBackjumping(algorithm.equals("fc_cbj"));
+                fc.setSymmetryBreaking(group);
+                solver = fc;
+                break;
+            default:
+                MAC.Propagator propagator = algorithm.equals("mac_ac3") ? MAC.Propagator.AC3
+                        : algorithm.equals("mac_ac3rm") ? MAC.Propagator.AC3_RM
+                        : algorithm.equals("mac_ac2001") ? MAC.Propagator.AC2001 : MAC.Propagator.AC3_BIT;
+                MAC mac = Solver.newMAC(csp, propagator);
+                mac.setSymmetryBreaking(group);
+                solver = mac;
+        }
+
+        return solver;
+    }
+
+    //prints the JSON line of a job, lines of jobs finishing together are never interleaved
+    private synchronized void print(File instance, Status status, SearchAlgorithm solver, long wallTime, String error) {
+        counts[status.ordinal()]++;
+        StringBuilder line = new StringBuilder();
+        line.append("{\"instance\": ").append(Json.quote(instance.getPath()));
+        line.append(", \"algorithm\": ").append(Json.quote(algorithm));
+        line.append(", \"status\": ").append(Json.quote(status.toString()));
+
+        if (error != null) {
+            line.append(", \"error\": ").append(Json.quote(error));
+        } else {
+            line.append(", \"nodes\": ").append(solver.getNodesVisited());
+            line.append(", \"revisions\": ").append(solver.getArcRevisions());
+            line.append(", \"checks\": ").append(solver.getConstraintChecks());
+            line.append(", \"search_ms\": ").append(solver.getTimeTaken());
+        }
+
+        line.append(", \"wall_ms\": ").append(wallTime);
+
+        if (status == Status.SAT) {
+            line.append(", \"solution\": ").append(Arrays.toString(solver.getSolution()));
+        }
+
+        System.out.println(line.append("}"));
+    }
+}
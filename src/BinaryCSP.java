@@ -3,10 +3,78 @@ import java.util.* ;
 public final class BinaryCSP {
   private int[][] domainBounds ;
   private ArrayList<BinaryConstraint> constraints ;
+  private BinaryConstraint[][] constraintMatrix ;   // constraintMatrix[x][y]: the constraint between x and y, or null
+  private int[][] neighbours ;                      // neighbours[x]: the variables sharing a constraint with x
+  private BinaryConstraint[][] neighbourConstraints ;   // neighbourConstraints[x][k]: the constraint between x and neighbours[x][k]
+  private int[][] neighbourSides ;                  // neighbourSides[x][k]: 0 if x is the first variable of that constraint, 1 otherwise
+  private Domain[] domains ;                        // domains[x]: initial domain of x when it has holes (after preprocessing), else null
   
   public BinaryCSP(int[][] db, ArrayList<BinaryConstraint> c) {
     domainBounds = db ;
     constraints = c ;
+    for (BinaryConstraint bc : constraints)
+      bc.index(getLB(bc.getFirstVar()), getUB(bc.getFirstVar()),
+               getLB(bc.getSecondVar()), getUB(bc.getSecondVar())) ;
+    buildAdjacency() ;
+  }
+
+  /**
+   * The same CSP with its variables starting from the given domains, such as
+   * the domains left by preprocessing. The bounds, constraints and adjacency
+   * are shared, so the domains keep the offsets the support rows are aligned with.
+   */
+  public BinaryCSP(BinaryCSP csp, Domain[] d) {
+    domainBounds = csp.domainBounds ;
+    constraints = csp.constraints ;
+    constraintMatrix = csp.constraintMatrix ;
+    neighbours = csp.neighbours ;
+    neighbourConstraints = csp.neighbourConstraints ;
+    neighbourSides = csp.neighbourSides ;
+    domains = new Domain[d.length] ;
+    for (int i = 0; i < d.length; i++)
+      domains[i] = new Domain(d[i]) ;
+  }
+
+  /**
+   * Builds the constraint matrix and the per-variable adjacency lists once,
+   * so the solvers can find the constraints on a variable in O(degree).
+   * Several constraints over the same pair are conjoined into the first one.
+   * A constraint of a variable with itself has no place in the lists and is rejected.
+   */
+  private void buildAdjacency() {
+    int n = domainBounds.length ;
+    constraintMatrix = new BinaryConstraint[n][n] ;
+    int[] degree = new int[n] ;
+    for (BinaryConstraint bc : constraints) {
+      int x = bc.getFirstVar(), y = bc.getSecondVar() ;
+      if (x == y)
+        throw new IllegalArgumentException("Constraint of variable " + x + " with itself") ;
+      if (constraintMatrix[x][y] != null) {
+        constraintMatrix[x][y].conjoin(bc) ;
+        continue ;
+      }
+      constraintMatrix[x][y] = bc ;
+      constraintMatrix[y][x] = bc ;
+      degree[x]++ ;
+      degree[y]++ ;
+    }
+    neighbours = new int[n][] ;
+    neighbourConstraints = new BinaryConstraint[n][] ;
+    neighbourSides = new int[n][] ;
+    for (int x = 0; x < n; x++) {
+      neighbours[x] = new int[degree[x]] ;
+      neighbourConstraints[x] = new BinaryConstraint[degree[x]] ;
+      neighbourSides[x] = new int[degree[x]] ;
+      int k = 0 ;
+      for (int y = 0; y < n; y++) {
+        if (constraintMatrix[x][y] != null) {
+          neighbours[x][k] = y ;
+          neighbourConstraints[x][k] = constraintMatrix[x][y] ;
+          neighbourSides[x][k] = constraintMatrix[x][y].isMatch(x) ;
+          k++ ;
+        }
+      }
+    }
   }
   
   public String toString() {
@@ -30,8 +98,32 @@ public final class BinaryCSP {
   public int getUB(int varIndex) {
     return domainBounds[varIndex][1] ;
   }
+
+  // a new copy of the initial domain of a variable, which the solver can prune
+  public Domain getDomain(int varIndex) {
+    if (domains == null)
+      return new Domain(getLB(varIndex), getUB(varIndex)) ;
+    return new Domain(domains[varIndex]) ;
+  }
   
   public ArrayList<BinaryConstraint> getConstraints() {
     return constraints ;
   }
+
+  // O(1) lookup of the constraint between two variables, null if they are unconstrained
+  public BinaryConstraint getConstraint(int x, int y) {
+    return constraintMatrix[x][y] ;
+  }
+
+  public int[] getNeighbours(int varIndex) {
+    return neighbours[varIndex] ;
+  }
+
+  public BinaryConstraint[] getNeighbourConstraints(int varIndex) {
+    return neighbourConstraints[varIndex] ;
+  }
+
+  public int[] getNeighbourSides(int varIndex) {
+    return neighbourSides[varIndex] ;
+  }
 }
\ No newline at end of file
@@ -1,68 +1,169 @@
 import java.io.* ;
+import java.nio.ByteOrder ;
+import java.nio.LongBuffer ;
+import java.nio.MappedByteBuffer ;
+import java.nio.channels.FileChannel ;
+import java.nio.file.* ;
 import java.util.* ;
 
+/**
+ * Reads a .csp file by memory-mapping it and parsing integers straight from
+ * the bytes. Commas, brackets and whitespace separate tokens, and '/' starts
+ * a comment running to the end of the line. Tuples go directly into the
+ * support bit-matrix of their constraint.
+ * Instead of tuples a constraint can be given by one intensional relation:
+ *   ne                 firstVar != secondVar
+ *   diff d1 d2 ...     firstVar - secondVar is none of d1, d2, ...
+ *   offset k           secondVar = firstVar + k
+ * Files starting with the .cspb magic number (see BinaryCSPWriter) are loaded
+ * by copying the packed rows out of the mapping, without any parsing.
+ */
 public final class BinaryCSPReader {
-  private FileReader inFR ;
-  private StreamTokenizer in ;
+  private MappedByteBuffer in ;
+  private int pos, limit ;
 
+  // reads the file, printing the error and returning null if it cannot
   public BinaryCSP readBinaryCSP(String fn) {
     try {
-      inFR = new FileReader(fn) ;
-      in = new StreamTokenizer(inFR) ;
-      in.ordinaryChar('(') ;
-      in.ordinaryChar(')') ;
-      in.nextToken() ;                                     
-      int n = (int)in.nval ;
+      return read(fn) ;
+    }
+    catch (IOException e) {System.out.println(e);}
+    return null ;
+  }
+
+  // reads the file, a malformed or unreadable one throws with the cause
+  public BinaryCSP read(String fn) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(fn), StandardOpenOption.READ)) {
+      in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) ;
+      pos = 0 ;
+      limit = in.limit() ;
+      if (limit >= 4 && in.order(ByteOrder.LITTLE_ENDIAN).getInt(0) == BinaryCSPWriter.MAGIC)
+        return readCompactCSP() ;
+      int n = nextInt() ;
       int[][] domainBounds = new int[n][2] ;
       for (int i = 0; i < n; i++) {
-	      in.nextToken() ;                                 
-	      domainBounds[i][0] = (int)in.nval ;
-		    in.nextToken() ;                                 
-		    in.nextToken() ;
-	      domainBounds[i][1] = (int)in.nval ;
+        domainBounds[i][0] = nextInt() ;
+        domainBounds[i][1] = nextInt() ;
       }
-      ArrayList<BinaryConstraint> constraints = readBinaryConstraints() ;
-      BinaryCSP csp = new BinaryCSP(domainBounds, constraints) ;
-      inFR.close() ;
-      return csp ;
+      ArrayList<BinaryConstraint> constraints = readBinaryConstraints(domainBounds) ;
+      return new BinaryCSP(domainBounds, constraints) ;
     }
-    catch (FileNotFoundException e) {System.out.println(e);}
-    catch (IOException e) {System.out.println(e);}
-    return null ;
+    finally {in = null ;}
   }
 
-  private ArrayList<BinaryConstraint> readBinaryConstraints() {
-    ArrayList<BinaryConstraint> constraints = new ArrayList<BinaryConstraint>() ;
-	
-    try {
-      in.nextToken() ;                                 
-      while(in.ttype != in.TT_EOF) {
-	      // scope
-	      in.nextToken() ;                                    
-		    in.nextToken() ;                                   
-	      int var1 = (int)in.nval ;
-		    in.nextToken() ;                                    
-		    in.nextToken() ;                                     
-        int var2 = (int)in.nval ;
-		    in.nextToken() ;                                     
+  private BinaryCSP readCompactCSP() throws IOException {
+    if (in.getInt(4) != BinaryCSPWriter.VERSION)
+      throw new IOException("Unsupported .cspb version " + in.getInt(4)) ;
+    int n = in.getInt(8) ;
+    int m = in.getInt(12) ;
+    int[][] domainBounds = new int[n][2] ;
+    for (int i = 0; i < n; i++) {
+      domainBounds[i][0] = in.getInt(16 + 8 * i) ;
+      domainBounds[i][1] = in.getInt(20 + 8 * i) ;
+    }
+    in.position(16 + 8 * n) ;
+    LongBuffer rows = in.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer() ;
+    ArrayList<BinaryConstraint> constraints = new ArrayList<BinaryConstraint>(m) ;
+    for (int k = 0; k < m; k++) {
+      long scope = rows.get() ;
+      int var1 = (int)scope ;
+      int var2 = (int)(scope >>> 32) ;
+      if (var1 == var2)
+        throw new IOException("Constraint of variable " + var1 + " with itself") ;
+      BinaryConstraint c = new BinaryConstraint(var1, var2, domainBounds[var1][0], domainBounds[var1][1],
+                                                domainBounds[var2][0], domainBounds[var2][1]) ;
+      c.loadSupports(rows) ;
+      constraints.add(c) ;
+    }
+    return new BinaryCSP(domainBounds, constraints) ;
+  }
 
-		    ArrayList<BinaryTuple> tuples = new ArrayList<BinaryTuple>() ;
-        in.nextToken() ;             
-        while (!"c".equals(in.sval) && (in.ttype != in.TT_EOF)) {
-          int val1 = (int)in.nval ;
-	        in.nextToken() ;                                  
-	        in.nextToken() ;                             
-		      int val2 = (int)in.nval ;
-		      tuples.add(new BinaryTuple(val1, val2)) ;
-		      in.nextToken() ;      
-		    }
-        BinaryConstraint c = new BinaryConstraint(var1, var2, tuples) ;
+  private ArrayList<BinaryConstraint> readBinaryConstraints(int[][] domainBounds) throws IOException {
+    ArrayList<BinaryConstraint> constraints = new ArrayList<BinaryConstraint>() ;
+    BinaryConstraint c = null ;
+    while (skipSeparators()) {
+      if (in.get(pos) == 'c') {
+        // scope
+        int start = pos++ ;
+        int var1 = nextInt() ;
+        int var2 = nextInt() ;
+        if (var1 == var2)
+          throw new IOException("Constraint of variable " + var1 + " with itself at byte " + start) ;
+        if (skipSeparators() && Character.isLetter(in.get(pos)) && in.get(pos) != 'c')
+          c = readRelation(var1, var2) ;
+        else
+          c = new BinaryConstraint(var1, var2, domainBounds[var1][0], domainBounds[var1][1],
+                                   domainBounds[var2][0], domainBounds[var2][1]) ;
         constraints.add(c) ;
       }
-	  
-      return constraints ;
+      else if (c == null)
+        throw new IOException("Tuple before the first constraint at byte " + pos) ;
+      else if (c.getKind() != BinaryConstraint.Kind.EXTENSIONAL)
+        throw new IOException("Tuple after an intensional relation at byte " + pos) ;
+      else {
+        int val1 = nextInt() ;
+        int val2 = nextInt() ;
+        c.addTuple(val1, val2) ;
+      }
     }
-    catch (IOException e) {System.out.println(e);}
-    return null ;  
+    return constraints ;
+  }
+
+  private BinaryConstraint readRelation(int var1, int var2) throws IOException {
+    int start = pos ;
+    while (pos < limit && Character.isLetter(in.get(pos)))
+      pos++ ;
+    byte[] word = new byte[pos - start] ;
+    for (int i = 0; i < word.length; i++)
+      word[i] = in.get(start + i) ;
+    String name = new String(word, "US-ASCII") ;
+    if (name.equals("ne"))
+      return BinaryConstraint.notEqual(var1, var2) ;
+    if (name.equals("offset"))
+      return BinaryConstraint.offset(var1, var2, nextInt()) ;
+    if (name.equals("diff")) {
+      int[] differences = new int[0] ;
+      while (skipSeparators() && (Character.isDigit(in.get(pos)) || in.get(pos) == '-')) {
+        differences = Arrays.copyOf(differences, differences.length + 1) ;
+        differences[differences.length - 1] = nextInt() ;
+      }
+      return BinaryConstraint.difference(var1, var2, differences) ;
+    }
+    throw new IOException("Unknown relation " + name + " at byte " + start) ;
+  }
+
+  // moves past separators and comments, returns false at the end of the file
+  private boolean skipSeparators() {
+    while (pos < limit) {
+      byte b = in.get(pos) ;
+      if (b == '/')
+        while (pos < limit && in.get(pos) != '\n')
+          pos++ ;
+      else if (b == ' ' || b == ',' || b == '(' || b == ')' || b == '\n' || b == '\r' || b == '\t')
+        pos++ ;
+      else
+        return true ;
+    }
+    return false ;
+  }
+
+  private int nextInt() throws IOException {
+    if (!skipSeparators())
+      throw new IOException("Unexpected end of file") ;
+    boolean negative = (in.get(pos) == '-') ;
+    if (negative)
+      pos++ ;
+    int start = pos ;
+    int value = 0 ;
+    while (pos < limit) {
+      int digit = in.get(pos) - '0' ;
+      if (digit < 0 || digit > 9)
+        break ;
+      value = value * 10 + digit ;
+      pos++ ;
+    }
+    if (pos == start)
+      throw new IOException("Expected an integer at byte " + pos) ;
+    return negative ? -value : value ;
   }
-}
\ No newline at end of file
+}
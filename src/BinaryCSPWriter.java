@@ -0,0 +1,82 @@
+import java.io.* ;
+import java.nio.ByteBuffer ;
+import java.nio.ByteOrder ;
+import java.nio.channels.FileChannel ;
+import java.nio.file.* ;
+import java.util.Arrays ;
+
+/**
+ * Writes a BinaryCSP in the compact binary .cspb format, little-endian:
+ *   int magic ("CSPB"), int version, int number of variables, int number of constraints
+ *   per variable: int lower bound, int upper bound
+ *   per constraint: int first variable, int second variable, then its support
+ *   bit-matrix in both directions, one row of longs per value (see BinaryConstraint)
+ * Every section is a multiple of 8 bytes, so the rows can be read from a
+ * mapping as aligned longs with no parsing. Intensional constraints are
+ * written as the table they stand for.
+ *
+ * Run as a converter with: java BinaryCSPWriter <file.csp> [file.cspb]
+ */
+public final class BinaryCSPWriter {
+  public static final int MAGIC = 0x43535042 ;
+  public static final int VERSION = 1 ;
+
+  public void writeBinaryCSP(BinaryCSP csp, String fn) throws IOException {
+    int n = csp.getNoVariables() ;
+    long size = 16 + 8L * n ;
+    for (BinaryConstraint bc : csp.getConstraints())
+      size += 8 + 8L * (rows(csp, bc.getFirstVar(), bc.getSecondVar()) + rows(csp, bc.getSecondVar(), bc.getFirstVar())) ;
+    ByteBuffer out = ByteBuffer.allocate((int)size).order(ByteOrder.LITTLE_ENDIAN) ;
+    out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(csp.getConstraints().size()) ;
+    for (int i = 0; i < n; i++)
+      out.putInt(csp.getLB(i)).putInt(csp.getUB(i)) ;
+    for (BinaryConstraint bc : csp.getConstraints()) {
+      out.putInt(bc.getFirstVar()).putInt(bc.getSecondVar()) ;
+      putRows(out, csp, bc, bc.getFirstVar()) ;
+      putRows(out, csp, bc, bc.getSecondVar()) ;
+    }
+    out.flip() ;
+    try (FileChannel channel = FileChannel.open(Paths.get(fn), StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (out.hasRemaining())
+        channel.write(out) ;
+    }
+  }
+
+  // number of longs in the support rows of var: one row per value, one bit per value of the other variable
+  private static int rows(BinaryCSP csp, int var, int other) {
+    return (csp.getUB(var) - csp.getLB(var) + 1) * ((csp.getUB(other) - csp.getLB(other) + 64) >>> 6) ;
+  }
+
+  private static void putRows(ByteBuffer out, BinaryCSP csp, BinaryConstraint bc, int var) {
+    int other = (var == bc.getFirstVar()) ? bc.getSecondVar() : bc.getFirstVar() ;
+    long[] row = new long[(csp.getUB(other) - csp.getLB(other) + 64) >>> 6] ;
+    for (int val = csp.getLB(var); val <= csp.getUB(var); val++) {
+      if (bc.getKind() == BinaryConstraint.Kind.EXTENSIONAL)
+        row = bc.getSupports(var, val) ;
+      else {
+        Arrays.fill(row, 0L) ;
+        for (int i = 0; i <= csp.getUB(other) - csp.getLB(other); i++) {
+          int otherVal = csp.getLB(other) + i ;
+          if ((var == bc.getFirstVar()) ? bc.allows(val, otherVal) : bc.allows(otherVal, val))
+            row[i >>> 6] |= 1L << i ;
+        }
+      }
+      for (long word : row)
+        out.putLong(word) ;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.out.println("Usage: java BinaryCSPWriter <file.csp> [file.cspb]") ;
+      return ;
+    }
+    BinaryCSP csp = new BinaryCSPReader().readBinaryCSP(args[0]) ;
+    if (csp == null)
+      return ;
+    String out = (args.length == 2) ? args[1] : args[0].replaceAll("\\.csp$", "") + ".cspb" ;
+    new BinaryCSPWriter().writeBinaryCSP(csp, out) ;
+    System.out.println("Wrote " + out) ;
+  }
+}
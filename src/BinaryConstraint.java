@@ -1,23 +1,207 @@
+import java.nio.LongBuffer ;
 import java.util.* ;
 
 public final class BinaryConstraint {
+  private static final long[] NO_SUPPORTS = new long[0] ;
+
+  /**
+   * How the allowed pairs are given. Only EXTENSIONAL constraints keep a
+   * support bit-matrix, the others are checked from their definition.
+   */
+  public enum Kind {
+    EXTENSIONAL,  // a table of allowed tuples
+    DIFFERENCE,   // firstVar - secondVar is none of the given differences (not-equal is the difference 0)
+    OFFSET,       // secondVar = firstVar + offset
+    PREDICATE     // any relation given as a Relation
+  }
+
+  // a relation over the values of the two variables, for PREDICATE constraints
+  public interface Relation {
+    boolean allows(int v1, int v2) ;
+  }
+
   private int firstVar, secondVar ;
+  private Kind kind = Kind.EXTENSIONAL ;
+  private int[] differences ;        // forbidden values of firstVar - secondVar, for DIFFERENCE
+  private int offset ;               // for OFFSET
+  private Relation relation ;        // for PREDICATE
   private ArrayList<BinaryTuple> tuples ;
+  private int firstOffset, secondOffset ;
+  private int firstWidth, secondWidth ;   // number of values between the bounds of each variable
+  private long[][] firstSupports ;   // firstSupports[v1 - firstOffset]: bitset of supported values of secondVar
+  private long[][] secondSupports ;  // secondSupports[v2 - secondOffset]: bitset of supported values of firstVar
+  private long[] firstWords ;        // firstSupports as one word per value when secondVar has at most 64 values, else null
+  private long[] secondWords ;       // secondSupports as one word per value when firstVar has at most 64 values, else null
   
   public BinaryConstraint(int fv, int sv, ArrayList<BinaryTuple> t) {
     firstVar = fv ;
     secondVar = sv ;
     tuples = t ;
   }
+
+  /**
+   * A constraint whose tuples are streamed in with addTuple straight into the
+   * support bit-matrix, without keeping a list of BinaryTuple objects.
+   */
+  public BinaryConstraint(int fv, int sv, int lb1, int ub1, int lb2, int ub2) {
+    firstVar = fv ;
+    secondVar = sv ;
+    allocate(lb1, ub1, lb2, ub2) ;
+  }
+
+  private BinaryConstraint(int fv, int sv, Kind k) {
+    firstVar = fv ;
+    secondVar = sv ;
+    kind = k ;
+  }
+
+  // fv != sv
+  public static BinaryConstraint notEqual(int fv, int sv) {
+    return difference(fv, sv, 0) ;
+  }
+
+  // fv - sv is none of the given differences, so fv != sv && |fv - sv| != d is difference(fv, sv, 0, d, -d)
+  public static BinaryConstraint difference(int fv, int sv, int... forbidden) {
+    BinaryConstraint c = new BinaryConstraint(fv, sv, Kind.DIFFERENCE) ;
+    c.differences = Arrays.stream(forbidden).distinct().toArray() ;
+    return c ;
+  }
+
+  // sv = fv + k
+  public static BinaryConstraint offset(int fv, int sv, int k) {
+    BinaryConstraint c = new BinaryConstraint(fv, sv, Kind.OFFSET) ;
+    c.offset = k ;
+    return c ;
+  }
+
+  public static BinaryConstraint predicate(int fv, int sv, Relation r) {
+    BinaryConstraint c = new BinaryConstraint(fv, sv, Kind.PREDICATE) ;
+    c.relation = r ;
+    return c ;
+  }
   
   public String toString() {
     StringBuffer result = new StringBuffer() ;
     result.append("c("+firstVar+", "+secondVar+")\n") ;
-    for (BinaryTuple bt : tuples)
+    if (kind == Kind.DIFFERENCE && differences.length == 1 && differences[0] == 0)
+      return result.append("ne\n").toString() ;
+    if (kind == Kind.DIFFERENCE) {
+      result.append("diff") ;
+      for (int d : differences)
+        result.append(" "+d) ;
+      return result.append("\n").toString() ;
+    }
+    if (kind == Kind.OFFSET)
+      return result.append("offset "+offset+"\n").toString() ;
+    for (BinaryTuple bt : getTuples())
       result.append(bt+"\n") ;
     return result.toString() ;
   }
 
+  private void allocate(int lb1, int ub1, int lb2, int ub2) {
+    firstOffset = lb1 ;
+    secondOffset = lb2 ;
+    firstWidth = ub1 - lb1 + 1 ;
+    secondWidth = ub2 - lb2 + 1 ;
+    firstSupports = new long[ub1 - lb1 + 1][(ub2 - lb2 + 64) >>> 6] ;
+    secondSupports = new long[ub2 - lb2 + 1][(ub1 - lb1 + 64) >>> 6] ;
+  }
+
+  /**
+   * Builds the support bit-matrix in both directions, with bit i standing for
+   * the value lb + i of the other variable so rows line up with its Domain.
+   * Tuples outside the bounds can never be used and are dropped.
+   * A constraint built from a stream already has its matrix and only gets its word rows here.
+   */
+  public void index(int lb1, int ub1, int lb2, int ub2) {
+    if (kind != Kind.EXTENSIONAL) {
+      firstOffset = lb1 ;
+      secondOffset = lb2 ;
+      firstWidth = ub1 - lb1 + 1 ;
+      secondWidth = ub2 - lb2 + 1 ;
+      return ;
+    }
+    if (firstSupports == null) {
+      allocate(lb1, ub1, lb2, ub2) ;
+      for (BinaryTuple bt : tuples)
+        addTuple(bt.getVal1(), bt.getVal2()) ;
+    }
+    firstWords = toWords(firstSupports, secondSupports.length) ;
+    secondWords = toWords(secondSupports, firstSupports.length) ;
+  }
+
+  // fills both matrices from rows packed as written by BinaryCSPWriter: the first direction then the second, row by row
+  public void loadSupports(LongBuffer rows) {
+    for (long[] row : firstSupports)
+      rows.get(row) ;
+    for (long[] row : secondSupports)
+      rows.get(row) ;
+  }
+
+  // marks the pair (v1, v2) as allowed, pairs outside the bounds are dropped
+  public void addTuple(int v1, int v2) {
+    int i = v1 - firstOffset ;
+    int j = v2 - secondOffset ;
+    if (i < 0 || i >= firstSupports.length || j < 0 || j >= secondSupports.length)
+      return ;
+    firstSupports[i][j >>> 6] |= 1L << j ;
+    secondSupports[j][i >>> 6] |= 1L << i ;
+  }
+
+  // flattens rows over a domain of at most 64 values into one word per row
+  private static long[] toWords(long[][] supports, int width) {
+    if (width > 64)
+      return null ;
+    long[] words = new long[supports.length] ;
+    for (int i = 0; i < supports.length; i++)
+      words[i] = supports[i][0] ;
+    return words ;
+  }
+
+  /**
+   * Restricts this constraint to the pairs also allowed by another constraint
+   * over the same variables. Two tables are intersected in place, anything
+   * else becomes the PREDICATE of both relations.
+   */
+  public void conjoin(BinaryConstraint other) {
+    boolean same = (other.firstVar == firstVar) ;
+    if (kind != Kind.EXTENSIONAL || other.kind != Kind.EXTENSIONAL) {
+      final BinaryConstraint self = copy() ;
+      relation = same ? (v1, v2) -> self.allows(v1, v2) && other.allows(v1, v2)
+                      : (v1, v2) -> self.allows(v1, v2) && other.allows(v2, v1) ;
+      kind = Kind.PREDICATE ;
+      firstSupports = secondSupports = null ;
+      firstWords = secondWords = null ;
+      return ;
+    }
+    for (int i = 0; i < firstSupports.length; i++)
+      for (int w = 0; w < firstSupports[i].length; w++)
+        firstSupports[i][w] &= same ? other.firstSupports[i][w] : other.secondSupports[i][w] ;
+    for (int j = 0; j < secondSupports.length; j++)
+      for (int w = 0; w < secondSupports[j].length; w++)
+        secondSupports[j][w] &= same ? other.secondSupports[j][w] : other.firstSupports[j][w] ;
+    firstWords = toWords(firstSupports, secondSupports.length) ;
+    secondWords = toWords(secondSupports, firstSupports.length) ;
+  }
+
+  private BinaryConstraint copy() {
+    BinaryConstraint c = new BinaryConstraint(firstVar, secondVar, kind) ;
+    c.differences = differences ;
+    c.offset = offset ;
+    c.relation = relation ;
+    c.firstOffset = firstOffset ;
+    c.secondOffset = secondOffset ;
+    c.firstWidth = firstWidth ;
+    c.secondWidth = secondWidth ;
+    c.firstSupports = firstSupports ;
+    c.secondSupports = secondSupports ;
+    return c ;
+  }
+
+  public Kind getKind() {
+    return kind ;
+  }
+
   public int isMatch(int var) {
     if (firstVar == var) {
       return 0;
@@ -28,6 +212,99 @@ public final class BinaryConstraint {
     }
   }
 
+  // O(1) check of whether the pair (v1, v2) is allowed, O(differences) for DIFFERENCE
+  public boolean allows(int v1, int v2) {
+    switch (kind) {
+      case DIFFERENCE:
+        for (int d : differences)
+          if (v1 - v2 == d)
+            return false ;
+        return true ;
+      case OFFSET:
+        return v2 == v1 + offset ;
+      case PREDICATE:
+        return relation.allows(v1, v2) ;
+      default:
+        int i = v1 - firstOffset ;
+        int j = v2 - secondOffset ;
+        if (i < 0 || i >= firstWidth || j < 0 || j >= secondWidth)
+          return false ;
+        return (firstSupports[i][j >>> 6] & (1L << j)) != 0 ;
+    }
+  }
+
+  /**
+   * Whether revising a variable against a domain of the other variable can
+   * remove anything. A DIFFERENCE forbids at most one value of the other
+   * variable per difference, so it cannot prune while that domain is larger
+   * (not-equal only prunes once the other domain is a singleton).
+   */
+  public boolean canPrune(Domain otherDomain) {
+    return kind != Kind.DIFFERENCE || otherDomain.size() <= differences.length ;
+  }
+
+  // whether val of var has a support in the domain of the other variable
+  public boolean hasSupport(int var, int val, Domain otherDomain) {
+    boolean first = (var == firstVar) ;
+    switch (kind) {
+      case DIFFERENCE: {
+        int forbidden = 0 ;
+        for (int d : differences)
+          if (otherDomain.contains(first ? val - d : val + d))
+            forbidden++ ;
+        return otherDomain.size() > forbidden ;
+      }
+      case OFFSET:
+        return otherDomain.contains(first ? val + offset : val - offset) ;
+      case PREDICATE:
+        for (int other = otherDomain.min(); other != Domain.NONE; other = otherDomain.next(other))
+          if (first ? relation.allows(val, other) : relation.allows(other, val))
+            return true ;
+        return false ;
+      default:
+        return otherDomain.intersects(getSupports(var, val)) ;
+    }
+  }
+
+  // number of values in the domain of the other variable supporting val of var
+  public int countSupports(int var, int val, Domain otherDomain) {
+    boolean first = (var == firstVar) ;
+    int count = 0 ;
+    switch (kind) {
+      case DIFFERENCE:
+        count = otherDomain.size() ;
+        for (int d : differences)
+          if (otherDomain.contains(first ? val - d : val + d))
+            count-- ;
+        return count ;
+      case OFFSET:
+        return otherDomain.contains(first ? val + offset : val - offset) ? 1 : 0 ;
+      case PREDICATE:
+        for (int other = otherDomain.min(); other != Domain.NONE; other = otherDomain.next(other))
+          if (first ? relation.allows(val, other) : relation.allows(other, val))
+            count++ ;
+        return count ;
+      default:
+        return otherDomain.countCommon(getSupports(var, val)) ;
+    }
+  }
+
+  // bitset of the values of the other variable supporting val of var, aligned with the other variable's Domain (EXTENSIONAL only)
+  public long[] getSupports(int var, int val) {
+    if (kind != Kind.EXTENSIONAL)
+      return NO_SUPPORTS ;
+    long[][] supports = (var == firstVar) ? firstSupports : secondSupports ;
+    int i = val - ((var == firstVar) ? firstOffset : secondOffset) ;
+    if (i < 0 || i >= supports.length)
+      return NO_SUPPORTS ;
+    return supports[i] ;
+  }
+
+  // one word of supports per value of var (indexed by val - lb), or null if the other variable has more than 64 values or there is no table
+  public long[] getSupportWords(int var) {
+    return (var == firstVar) ? firstWords : secondWords ;
+  }
+
   public int getFirstVar() {
     return firstVar ;
   }
@@ -36,7 +313,15 @@ public final class BinaryConstraint {
     return secondVar ;
   }
 
+  // the allowed tuples, rebuilt from the bit-matrix (or the relation) when there is no list
   public ArrayList<BinaryTuple> getTuples() {
-    return tuples ;
+    if (tuples != null)
+      return tuples ;
+    ArrayList<BinaryTuple> result = new ArrayList<BinaryTuple>() ;
+    for (int i = 0; i < firstWidth; i++)
+      for (int j = 0; j < secondWidth; j++)
+        if (allows(firstOffset + i, secondOffset + j))
+          result.add(new BinaryTuple(firstOffset + i, secondOffset + j)) ;
+    return result ;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * This class attributes the cost and the effect of every arc revision to the constraint revised and to the variable whose domain
+ * was revised: revisions, constraint checks, time, values pruned and wipe-outs.
+ * FC and MAC report each revision to it when one is set, timing it with System.nanoTime, so profiling slows the search down
+ * and the times are meant to be compared with each other rather than with an unprofiled run.
+ * The report ranks the constraints by time, which shows where an intensional or global propagator would pay off, and the
+ * wipe-outs of each constraint are the weights a weighted heuristic such as dom/wdeg would have learnt from the run.
+ * Constraints over the same pair of variables are conjoined by BinaryCSP, so a constraint is identified by its pair.
+ */
+
+public class ConstraintProfiler {
+    private BinaryCSP csp;
+    private int[][] ids;   //ids[x][y]: index of the constraint between x and y, or -1
+    private int[][] pairs;   //pairs[c]: the two variables of constraint c, smallest first
+    private long[] revisions;   //revisions[c]: revisions of constraint c
+    private long[] checks;   //checks[c]: constraint checks made revising c
+    private long[] nanos;   //nanos[c]: time spent revising c
+    private long[] pruned;   //pruned[c]: values removed revising c
+    private long[] wipeOuts;   //wipeOuts[c]: domains wiped out revising c
+    private long[] varRevisions;   //varRevisions[x]: revisions of the domain of x
+    private long[] varChecks;
+    private long[] varNanos;
+    private long[] varPruned;
+    private long[] varWipeOuts;
+
+    public ConstraintProfiler(BinaryCSP csp) {
+        this.csp = csp;
+        int n = csp.getNoVariables();
+        ids = new int[n][];
+        List<int[]> found = new ArrayList<>();
+
+        for (int x = 0; x < n; x++) {
+            ids[x] = new int[n];
+            Arrays.fill(ids[x], -1);
+        }
+
+        for (int x = 0; x < n; x++) {
+            for (int y : csp.getNeighbours(x)) {
+                if (x < y) {
+                    ids[x][y] = found.size();
+                    ids[y][x] = found.size();
+                    found.add(new int[] {x, y});
+                }
+            }
+        }
+
+        pairs = found.toArray(new int[0][]);
+        revisions = new long[pairs.length];
+        checks = new long[pairs.length];
+        nanos = new long[pairs.length];
+        pruned = new long[pairs.length];
+        wipeOuts = new long[pairs.length];
+        varRevisions = new long[n];
+        varChecks = new long[n];
+        varNanos = new long[n];
+        varPruned = new long[n];
+        varWipeOuts = new long[n];
+    }
+
+    //records one revision of the domain of var against otherVar
+    public void revised(int var, int otherVar, long checksMade, long time, int valuesPruned, boolean wipedOut) {
+        int c = ids[var][otherVar];
+        revisions[c]++;
+        checks[c] += checksMade;
+        nanos[c] += time;
+        pruned[c] += valuesPruned;
+        varRevisions[var]++;
+        varChecks[var] += checksMade;
+        varNanos[var] += time;
+        varPruned[var] += valuesPruned;
+
+        if (wipedOut) {
+            wipeOuts[c]++;
+            varWipeOuts[var]++;
+        }
+    }
+
+    //wipe-outs caused by the constraint between x and y, 0 if there is none
+    public long getWipeOuts(int x, int y) {
+        return (ids[x][y] == -1) ? 0 : wipeOuts[ids[x][y]];
+    }
+
+    public long getChecks(int x, int y) {
+        return (ids[x][y] == -1) ? 0 : checks[ids[x][y]];
+    }
+
+    public long getNanos(int x, int y) {
+        return (ids[x][y] == -1) ? 0 : nanos[ids[x][y]];
+    }
+
+    public long getVariableWipeOuts(int var) {
+        return varWipeOuts[var];
+    }
+
+    //prints the constraints taking the most revision time, then the variables, at most limit of each
+    public void printReport(int limit) {
+        long totalNanos = 0;
+        long totalChecks = 0;
+        long totalWipeOuts = 0;
+
+        for (int c = 0; c < pairs.length; c++) {
+            totalNanos += nanos[c];
+            totalChecks += checks[c];
+            totalWipeOuts += wipeOuts[c];
+        }
+
+        System.out.println("Hot constraints (" + pairs.length + " constraints, " + totalChecks + " checks, "
+                + String.format("%.1f", totalNanos / 1e6) + "ms revising, " + totalWipeOuts + " wipe-outs):");
+        System.out.println(String.format("  %-14s %-11s %10s %12s %9s %6s %10s %10s", "constraint", "kind", "revisions", "checks", "ms",
+                "time%", "pruned", "wipe-outs"));
+        List<Integer> order = ranked(pairs.length, nanos);
+
+        for (int i = 0; i < Math.min(limit, order.size()); i++) {
+            int c = order.get(i);
+            BinaryConstraint constraint = csp.getConstraint(pairs[c][0], pairs[c][1]);
+            System.out.println(String.format("  %-14s %-11s %10d %12d %9.2f %5.1f%% %10d %10d", pairs[c][0] + "-" + pairs[c][1],
+                    constraint.getKind().toString().toLowerCase(), revisions[c], checks[c], nanos[c] / 1e6,
+                    percent(nanos[c], totalNanos), pruned[c], wipeOuts[c]));
+        }
+
+        System.out.println("Hot variables:");
+        System.out.println(String.format("  %-14s %10s %12s %9s %6s %10s %10s", "variable", "revisions", "checks", "ms", "time%",
+                "pruned", "wipe-outs"));
+        order = ranked(varNanos.length, varNanos);
+
+        for (int i = 0; i < Math.min(limit, order.size()); i++) {
+            int x = order.get(i);
+            System.out.println(String.format("  %-14d %10d %12d %9.2f %5.1f%% %10d %10d", x, varRevisions[x], varChecks[x],
+                    varNanos[x] / 1e6, percent(varNanos[x], totalNanos), varPruned[x], varWipeOuts[x]));
+        }
+    }
+
+    //indices with a non-zero value, largest value first
+    private static List<Integer> ranked(int size, long[] values) {
+        List<Integer> order = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] > 0) {
+                order.add(i);
+            }
+        }
+
+        order.sort(Comparator.comparingLong((Integer i) -> values[i]).reversed());
+        return order;
+    }
+
+    private static double percent(long part, long total) {
+        return (total == 0) ? 0 : 100.0 * part / total;
+    }
+}
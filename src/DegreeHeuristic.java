@@ -0,0 +1,88 @@
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * This class orders the variables by dom/deg, or by dom/wdeg when weighted.
+ * Every constraint has a weight, kept on both sides of the adjacency lists, which dom/wdeg bumps when the constraint wipes out
+ * a domain. The weighted degree of a variable sums the weights of its constraints with unassigned neighbours, and it is updated
+ * as neighbours are assigned and unassigned, so it never has to be recounted. Every update marks the score of the variable as
+ * changed. Without weighting every weight stays at one and the weighted degree is the number of unassigned neighbours.
+ */
+
+public class DegreeHeuristic extends ScoredHeuristic {
+    private boolean weighted;   //whether wipe-outs bump the weights (dom/wdeg) or not (dom/deg)
+    private int[][] weights;   //weights[x][k]: weight of the constraint between x and its k-th neighbour
+    private int[][] reverseSlots;   //reverseSlots[x][k]: position of x among the neighbours of its k-th neighbour
+    private long[] weightedDegrees;   //sum of the weights of the constraints with unassigned neighbours
+
+    public DegreeHeuristic(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    public void initialise(BinaryCSP csp, List<Variable> variables) {
+        super.initialise(csp, variables);
+        int n = variables.size();
+        weights = new int[n][];
+        reverseSlots = new int[n][];
+        weightedDegrees = new long[n];
+
+        for (int x = 0; x < n; x++) {
+            int[] neighbours = csp.getNeighbours(x);
+            weights[x] = new int[neighbours.length];
+            reverseSlots[x] = new int[neighbours.length];
+            Arrays.fill(weights[x], 1);
+            weightedDegrees[x] = neighbours.length;
+
+            for (int k = 0; k < neighbours.length; k++) {
+                reverseSlots[x][k] = Arrays.binarySearch(csp.getNeighbours(neighbours[k]), x);
+            }
+        }
+    }
+
+    protected double score(int var) {
+        return domains[var].size() / (double) weightedDegrees[var];   //a variable with no unassigned neighbours goes last
+    }
+
+    //the constraints of the variable no longer count towards the degrees of its neighbours
+    public void assigned(int var) {
+        super.assigned(var);
+        int[] neighbours = csp.getNeighbours(var);
+
+        for (int k = 0; k < neighbours.length; k++) {
+            weightedDegrees[neighbours[k]] -= weights[var][k];
+            changed(neighbours[k]);
+        }
+    }
+
+    public void unassigned(int var) {
+        super.unassigned(var);
+        int[] neighbours = csp.getNeighbours(var);
+
+        for (int k = 0; k < neighbours.length; k++) {
+            weightedDegrees[neighbours[k]] += weights[var][k];
+            changed(neighbours[k]);
+        }
+    }
+
+    //bumps the weight of the constraint that caused the wipe-out
+    public void wipedOut(int var, int other) {
+        if (!weighted) {
+            return;
+        }
+
+        int k = Arrays.binarySearch(csp.getNeighbours(var), other);
+        weights[var][k]++;
+        weights[other][reverseSlots[var][k]]++;
+
+        if (!isAssigned(other)) {
+            weightedDegrees[var]++;
+        }
+
+        if (!isAssigned(var)) {
+            weightedDegrees[other]++;
+        }
+
+        changed(var);
+        changed(other);
+    }
+}
@@ -0,0 +1,14 @@
+/*
+ * This class orders the variables by smallest domain first, the heuristic FC and MAC have always used.
+ * The sizes are those of the current domains. The original list-based solvers compared sizes copied when a node's list of
+ * future variables was built, and a right branch reused its parent's list, so they missed the value just deleted and its
+ * pruning. Reading the domains live since the bitset domains changed which variable is branched on, and with it the node
+ * counts, e.g. FC 20Queens from 131944 to 142 nodes. The value order (smallest first) and the ties (lowest variable) are
+ * those of the original solvers.
+ */
+
+public class DomHeuristic extends ScoredHeuristic {
+    protected double score(int var) {
+        return domains[var].size();
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.function.IntConsumer;
+
+/*
+ * This class represents the domain of a variable as a bitset of primitive longs.
+ * Bit i of the set stands for the value offset + i, where the offset is the lower bound of the variable.
+ * The size, minimum and maximum are cached so that none of the common operations allocate or scan the domain.
+ */
+
+public class Domain {
+    public static final int NONE = Integer.MIN_VALUE;   //returned by the iteration methods when there are no more values
+
+    private final int offset;   //value represented by bit 0 (lower bound of the variable)
+    private final int width;   //number of values between the lower and upper bound
+    private final long[] words;   //bitset of the values currently in the domain
+    private int size;   //number of values currently in the domain
+    private int min;   //smallest value currently in the domain
+    private int max;   //largest value currently in the domain
+    private IntConsumer observer;   //told every time the domain changes, or null
+    private int var;   //variable passed to the observer
+
+    public Domain(int lb, int ub) {
+        offset = lb;
+        width = ub - lb + 1;
+        words = new long[(width + 63) >>> 6];
+
+        for (int i = 0; i < width; i++) {
+            words[i >>> 6] |= 1L << i;
+        }
+
+        size = width;
+        min = lb;
+        max = ub;
+    }
+
+    public Domain(Domain other) {
+        offset = other.offset;
+        width = other.width;
+        words = other.words.clone();
+        size = other.size;
+        min = other.min;
+        max = other.max;
+    }
+
+    public boolean contains(int val) {
+        int i = val - offset;
+
+        if (i < 0 || i >= width) {
+            return false;
+        }
+
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    //removes a value from the domain, returns false if the value was not in the domain
+    public boolean remove(int val) {
+        if (!contains(val)) {
+            return false;
+        }
+
+        int i = val - offset;
+        words[i >>> 6] &= ~(1L << i);
+        size--;
+
+        if (size == 0) {
+            min = NONE;
+            max = NONE;
+        } else if (val == min) {
+            min = next(val);
+        } else if (val == max) {
+            max = previous(val);
+        }
+
+        if (observer != null) {
+            observer.accept(var);
+        }
+
+        return true;
+    }
+
+    //adds a value back to the domain, returns false if the value was already in the domain
+    public boolean add(int val) {
+        int i = val - offset;
+
+        if (i < 0 || i >= width || contains(val)) {
+            return false;
+        }
+
+        words[i >>> 6] |= 1L << i;
+
+        if (size == 0) {
+            min = val;
+            max = val;
+        } else if (val < min) {
+            min = val;
+        } else if (val > max) {
+            max = val;
+        }
+
+        size++;
+
+        if (observer != null) {
+            observer.accept(var);
+        }
+
+        return true;
+    }
+
+    //reduces the domain to the single value given
+    public void assign(int val) {
+        for (int w = 0; w < words.length; w++) {
+            words[w] = 0L;
+        }
+
+        int i = val - offset;
+        words[i >>> 6] = 1L << i;
+        size = 1;
+        min = val;
+        max = val;
+
+        if (observer != null) {
+            observer.accept(var);
+        }
+    }
+
+    //reports every removal, restoration and assignment to the observer with the given variable, a copy has no observer
+    public void setObserver(IntConsumer observer, int var) {
+        this.observer = observer;
+        this.var = var;
+    }
+
+    //returns the smallest value in the domain greater than val, or NONE
+    public int next(int val) {
+        int i = val - offset + 1;
+
+        if (i < 0) {
+            i = 0;
+        }
+
+        if (i >= width) {
+            return NONE;
+        }
+
+        int w = i >>> 6;
+        long word = words[w] & (-1L << i);
+
+        while (true) {
+            if (word != 0) {
+                return offset + (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+
+            if (++w == words.length) {
+                return NONE;
+            }
+
+            word = words[w];
+        }
+    }
+
+    //returns the largest value in the domain smaller than val, or NONE
+    public int previous(int val) {
+        int i = val - offset - 1;
+
+        if (i >= width) {
+            i = width - 1;
+        }
+
+        if (i < 0) {
+            return NONE;
+        }
+
+        int w = i >>> 6;
+        long word = words[w] & (-1L >>> (63 - (i & 63)));
+
+        while (true) {
+            if (word != 0) {
+                return offset + (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+
+            if (--w < 0) {
+                return NONE;
+            }
+
+            word = words[w];
+        }
+    }
+
+    //checks if any value of the domain is in the given bitset, which must use the same offset
+    public boolean intersects(long[] bits) {
+        int n = Math.min(words.length, bits.length);
+
+        for (int w = 0; w < n; w++) {
+            if ((words[w] & bits[w]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //counts the values of the domain that are in the given bitset, which must use the same offset
+    public int countCommon(long[] bits) {
+        int n = Math.min(words.length, bits.length);
+        int count = 0;
+
+        for (int w = 0; w < n; w++) {
+            count += Long.bitCount(words[w] & bits[w]);
+        }
+
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int min() {
+        return min;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    //whether the whole domain fits in a single word
+    public boolean isSingleWord() {
+        return words.length == 1;
+    }
+
+    public long[] getWords() {
+        return words;
+    }
+
+    public String toString() {
+        StringBuffer result = new StringBuffer("{");
+
+        for (int val = min; val != NONE; val = next(val)) {
+            result.append(val == min ? "" : ", ").append(val);
+        }
+
+        return result.append("}").toString();
+    }
+}
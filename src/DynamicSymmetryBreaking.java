@@ -0,0 +1,132 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/*
+ * This class breaks the symmetries of a group during a 2-way search, in the style of SBDS.
+ * When the right branch x != a is taken under the positive decisions A, the subtree A, x = a has been searched, so for every
+ * symmetry g the subtree below holds the constraint g(A) -> g(x != a): once the images of A under g all hold, the image of
+ * x = a is pruned.
+ * For each symmetry the images of the positive decisions are checked in order and the refuted decisions are fired in order,
+ * so a node only looks at what changed since its parent. Both counters are saved per level and restored on backtracking.
+ * Once an image is false the count of images that hold stops there for the whole subtree, but the refuted decisions taken
+ * under fewer positive decisions still fire.
+ */
+
+public class DynamicSymmetryBreaking {
+    private Symmetry[] symmetries;   //the symmetries of the problem, without the identity
+    private Domain[] domains;   //current domain of each variable
+    private int[] decisionVars = new int[16];   //variable of each positive decision on the branch
+    private int[] decisionVals = new int[16];   //value of each positive decision
+    private int noDecisions = 0;   //positive decisions on the branch
+    private int[] refutedVars = new int[16];   //variable of each refuted decision on the branch
+    private int[] refutedVals = new int[16];   //value of each refuted decision
+    private int[] refutedAfter = new int[16];   //number of positive decisions above each refuted decision
+    private int noRefuted = 0;   //refuted decisions on the branch
+    private int[] entailed;   //entailed[g]: positive decisions, from the first, whose images under g are known to hold
+    private int[] fired;   //fired[g]: refuted decisions whose images under g have been pruned
+    private int[] saved = new int[64];   //the counters of every open level, one block per level
+    private int savedSize = 0;   //ints used in saved
+    private long noPruned = 0;   //values pruned by symmetry breaking
+
+    public DynamicSymmetryBreaking(List<Symmetry> group, List<Variable> variables) {
+        symmetries = group.toArray(new Symmetry[0]);
+        domains = new Domain[variables.size()];
+
+        for (int i = 0; i < domains.length; i++) {
+            domains[i] = variables.get(i).getDomain();
+        }
+
+        entailed = new int[symmetries.length];
+        fired = new int[symmetries.length];
+    }
+
+    //opens a new level, along with a new level of the trail
+    public void push() {
+        int block = 2 + 2 * symmetries.length;
+
+        if (savedSize + block > saved.length) {
+            saved = Arrays.copyOf(saved, Math.max(saved.length * 2, savedSize + block));
+        }
+
+        saved[savedSize++] = noDecisions;
+        saved[savedSize++] = noRefuted;
+        System.arraycopy(entailed, 0, saved, savedSize, symmetries.length);
+        System.arraycopy(fired, 0, saved, savedSize + symmetries.length, symmetries.length);
+        savedSize += 2 * symmetries.length;
+    }
+
+    //restores the branch and counters of the last level
+    public void pop() {
+        savedSize -= 2 * symmetries.length;
+        System.arraycopy(saved, savedSize, entailed, 0, symmetries.length);
+        System.arraycopy(saved, savedSize + symmetries.length, fired, 0, symmetries.length);
+        noRefuted = saved[--savedSize];
+        noDecisions = saved[--savedSize];
+    }
+
+    //extends the branch with the decision var = val
+    public void decide(int var, int val) {
+        if (noDecisions == decisionVars.length) {
+            decisionVars = Arrays.copyOf(decisionVars, noDecisions * 2);
+            decisionVals = Arrays.copyOf(decisionVals, noDecisions * 2);
+        }
+
+        decisionVars[noDecisions] = var;
+        decisionVals[noDecisions++] = val;
+    }
+
+    //extends the branch with var != val, once the subtree under var = val has been searched
+    public void refute(int var, int val) {
+        if (noRefuted == refutedVars.length) {
+            refutedVars = Arrays.copyOf(refutedVars, noRefuted * 2);
+            refutedVals = Arrays.copyOf(refutedVals, noRefuted * 2);
+            refutedAfter = Arrays.copyOf(refutedAfter, noRefuted * 2);
+        }
+
+        refutedVars[noRefuted] = var;
+        refutedVals[noRefuted] = val;
+        refutedAfter[noRefuted++] = noDecisions;
+    }
+
+    /*
+     * Prunes the images of the refuted decisions under every symmetry whose images of the positive decisions above them hold,
+     * passing every variable whose domain is pruned to onPrune. Returns false if a domain is wiped out.
+     */
+    public boolean propagate(Trail trail, IntConsumer onPrune) {
+        for (int g = 0; g < symmetries.length; g++) {
+            Symmetry symmetry = symmetries[g];
+
+            while (entailed[g] < noDecisions) {
+                int k = entailed[g];
+                Domain domain = domains[symmetry.imageVar(decisionVars[k], decisionVals[k])];
+
+                if (domain.size() != 1 || !domain.contains(symmetry.imageVal(decisionVars[k], decisionVals[k]))) {
+                    break;
+                }
+
+                entailed[g]++;
+            }
+
+            while (fired[g] < noRefuted && refutedAfter[fired[g]] <= entailed[g]) {
+                int k = fired[g]++;
+                int var = symmetry.imageVar(refutedVars[k], refutedVals[k]);
+
+                if (trail.prune(domains[var], symmetry.imageVal(refutedVars[k], refutedVals[k]))) {
+                    noPruned++;
+                    onPrune.accept(var);
+
+                    if (domains[var].isEmpty()) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public long getPruned() {
+        return noPruned;
+    }
+}
@@ -1,320 +1,724 @@
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Stack;
 
 /* 
  * This class contains the Forward Checking algorithm for solving a binary CSP using 2-way search.
+ * With backjumping it runs FC-CBJ on the same tree. Each variable keeps the levels of the positive decisions its pruning depends on
+ * (its past-fc set), and a failure returns the levels it depends on (its conflict set). When a left branch x = a fails for reasons
+ * that do not include x = a, the right branch x != a would fail the same way, so it is skipped and the search jumps back to the
+ * deepest decision in the conflict set. Otherwise x != a is explained by that conflict set, which is added to the past-fc set of x.
+ * FC runs on an explicit stack of decisions rather than by recursion, so its depth is not limited by the thread stack; FC-CBJ,
+ * which returns a conflict set from every level, stays recursive.
  */
 
-public class FC {
-    private Stack<List<Variable>> previousState = new Stack<>();  //stack used to undopruning
-    private List<BinaryConstraint> constraints;   //constraints
+public class FC implements SearchAlgorithm {
+    private static final BitSet SOLVED = new BitSet();   //returned by FC-CBJ once a solution is found, compared by reference
+    private static final int UNASSIGNED = Domain.NONE;   //entry of an unassigned variable in the assignment, as a value may be negative
+
+    private Trail trail;   //trail used to undo pruning
+    private SearchStack stack;   //decisions on the current branch
     private List<Variable> varDomains;   // list of variables and their domains stored in the Variable class
     private BinaryCSP csp;    //csp instance
-    private int[] assignment;   //keeps track of assigned variables
+    private VariableHeuristic heuristic;   //chooses the variable to branch on
+    private ValueHeuristic valueHeuristic;   //chooses the value tried first
+    private int[] assignment;   //keeps track of assigned variables, UNASSIGNED for the others
+    private int[] solution;   //copy of the assignment when a solution is found
+    private volatile boolean cancelled = false;   //set from another thread to stop the search
+    private boolean stopped = false;   //whether the search gave up before the end of the tree, on a cancel or the node limit
+    private long nodeLimit = Long.MAX_VALUE;   //nodes the search may visit before it stops
+    private boolean allSolutions = false;   //whether the search goes on after each solution
+    private SolutionListener listener;   //receives every solution in all-solutions mode, may be null
+    private long solutionsFound = 0;   //solutions found in all-solutions mode
+    private boolean consistent = true;   //false once a variable fixed before the search wipes out a domain
     private int nodesVisited = 0;   //nodes visited
     private int arcRevisions = 0;   //arcs revised
+    private long constraintChecks = 0;   //constraint checks, one per bitset row tested
+    private RestartSchedule restarts = RestartSchedule.NONE;   //when the search starts again from the root
+    private NogoodStore nogoods;   //branch of decisions, and the nogoods recorded from it at restarts
+    private long cutoff = Long.MAX_VALUE;   //nodes the current run may visit before the search restarts
+    private long runNodes = 0;   //nodes visited in the current run
+    private boolean restarting = false;   //set once the current run has reached its cutoff
+    private int noRestarts = 0;   //restarts made
+    private long seed;   //seed of random value ordering and of random tie-breaking with restarts
+    private boolean backjumping = false;   //whether the search is FC-CBJ
+    private DynamicSymmetryBreaking symmetries;   //prunes the images of refuted decisions under the symmetries, null if unused
+    private SearchListener monitor;   //receives the events of the search, null unless monitored
+    private ConstraintProfiler profiler;   //receives every arc revision, null unless profiled
+    private BitSet[] pastFc;   //pastFc[x]: levels of the positive decisions the pruning of x depends on (FC-CBJ)
     private long timeTaken = 0;   //time taken to find a solution
     private long startTime = 0;
     private long endTime = 0;
 
     public FC(BinaryCSP csp) {
+        this(csp, VariableHeuristic.Type.DOM);
+    }
+
+    public FC(BinaryCSP csp, VariableHeuristic.Type ordering) {
+        this(csp, ordering, ValueHeuristic.Type.LEX, 0);
+    }
+
+    //the seed is only used by random value ordering
+    public FC(BinaryCSP csp, VariableHeuristic.Type ordering, ValueHeuristic.Type valueOrdering, long seed) {
         this.csp = csp;
+        this.heuristic = VariableHeuristic.create(ordering);
+        this.valueHeuristic = ValueHeuristic.create(valueOrdering, seed);
+        this.seed = seed;
         initialise(); 
     }
 
     // initialises the variables, domains and constraints
     public void initialise() {
         varDomains = new ArrayList<>();
-        constraints = csp.getConstraints();
         assignment = new int[csp.getNoVariables()];
+        int totalValues = 0;
 
         for (int i = 0; i < csp.getNoVariables(); i++) {
-            List<Integer> domain = new ArrayList<>();
-
-            for (int j = csp.getLB(i); j <= csp.getUB(i); j++) {
-                domain.add(j);
-            }
-
+            Domain domain = csp.getDomain(i);
             Variable variable = new Variable(i, domain);    
             varDomains.add(variable);
-            assignment[i] = -1;
+            assignment[i] = UNASSIGNED;
+            totalValues += domain.size();
+            consistent &= !domain.isEmpty();   //preprocessing may have wiped out a domain
         }
+
+        trail = new Trail(totalValues);
+        stack = new SearchStack(csp.getNoVariables() + totalValues);
+        heuristic.initialise(csp, varDomains);
+        valueHeuristic.initialise(csp, varDomains);
+        nogoods = new NogoodStore(csp, varDomains);
+        pastFc = new BitSet[csp.getNoVariables()];
+
+        for (int i = 0; i < csp.getNoVariables(); i++) {
+            pastFc[i] = new BitSet();
+        }
+    }
+
+    //breaks the symmetries of the group during the search, which then only finds solutions that are not symmetric to each other
+    //FC-CBJ does not use it, as its conflict sets cannot explain the values symmetry breaking prunes
+    public void setSymmetryBreaking(List<Symmetry> group) {
+        symmetries = (group == null) ? null : new DynamicSymmetryBreaking(group, varDomains);
+        nogoods.setSymmetries(group);
+    }
+
+    //switches to FC-CBJ, which does not restart
+    public void setBackjumping(boolean backjumping) {
+        this.backjumping = backjumping;
+    }
+
+    //restarts the search from the root following the schedule, with the ties of the variable ordering broken at random
+    public void setRestarts(RestartSchedule schedule) {
+        restarts = schedule;
+
+        if (schedule != RestartSchedule.NONE) {
+            heuristic.randomiseTies(seed);
+        }
+    }
+
+    public void setSearchListener(SearchListener listener) {
+        monitor = listener;
+    }
+
+    public void setProfiler(ConstraintProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void setNodeLimit(long limit) {
+        nodeLimit = limit;
+    }
+
+    //searches the whole tree, passing every solution to the listener (which may be null), and returns the number of solutions
+    public long solveAll(SolutionListener listener) {
+        this.allSolutions = true;
+        this.listener = listener;
+        solve();
+        return solutionsFound;
     }
 
     //starts the search
-    public void solve() {
-        startTime = System.currentTimeMillis();
-        searchFC(varDomains);
+    public boolean solve() {
+        startTime = System.nanoTime();
+
+        if (backjumping) {
+            symmetries = null;
+        }
+
+        if (monitor != null) {
+            monitor.searchStarted();
+        }
+
+        boolean found = consistent && (backjumping ? searchCBJ(0) == SOLVED : searchWithRestarts());
+        endTime = System.nanoTime();
+        timeTaken = (endTime - startTime) / 1_000_000;
+
+        if (monitor != null) {
+            monitor.searchFinished();
+        }
+
+        return found;
     }
 
-    //recursively searches for a solution
-    private void searchFC(List<Variable> varList) {
+    //runs the search once, or again from the root every time a run reaches the cutoff of the restart schedule
+    private boolean searchWithRestarts() {
+        for (int run = 0; ; run++) {
+            cutoff = restarts.cutoff(run);
+            runNodes = 0;
+            restarting = false;
+
+            if (searchFC()) {
+                return true;
+            }
+
+            if (!restarting || cancelled) {
+                return false;
+            }
+
+            noRestarts++;
+
+            if (monitor != null) {
+                monitor.restarted();
+            }
+
+            //back at the root, the nogoods of the abandoned branch are added, and a single-literal nogood removes its value for good
+            if (!nogoods.addPending(trail, var -> { })) {
+                return false;
+            }
+        }
+    }
+
+    /*
+     * Searches for a solution from the current node, returns true once one is found.
+     * A node whose forward checking left no domain empty is expanded by pushing a frame for its decision and taking the left branch.
+     * When a branch wipes out a domain, or the subtree under it has been searched, the top frame is backtracked: a left branch is
+     * undone and replaced by the right one, a right branch is undone and its frame popped.
+     */
+    private boolean searchFC() {
+        boolean failed = false;   //whether the branch of the top frame has failed or been searched
+
+        while (true) {
+            if (!failed) {
+                if (cancelled || nodesVisited >= nodeLimit) {
+                    cancelled = true;   //the restarts stop too
+                    stopped = true;
+                    failed = true;
+                } else if (solutionFound()) {
+                    if (!allSolutions) {
+                        solution = assignment.clone();
+                        return true;
+                    }
+
+                    solutionsFound++;   //reports the solution and backtracks as if it had failed
+
+                    if (listener != null) {
+                        listener.onSolution(assignment);
+                    }
+
+                    failed = true;
+                } else if (runNodes++ >= cutoff) {   //abandons the run, keeping what the branch has refuted
+                    nogoods.recordBranch();
+                    restarting = true;
+                    failed = true;
+                } else {
+                    nodesVisited++;   //increments the number of nodes visited
+
+                    Variable var = varDomains.get(heuristic.select());
+                    int val = selectVal(var);
+                    nogoods.decide(var.getVar(), val);
+                    stack.push(var.getVar(), val);
+
+                    if (monitor != null) {
+                        monitor.nodeVisited(stack.size());
+                        monitor.propagationStarted();
+                        failed = !branchLeft(var, val);
+                        monitor.propagationFinished(!failed);
+                    } else {
+                        failed = !branchLeft(var, val);
+                    }
+                }
+
+                continue;
+            }
+
+            if (stack.isEmpty()) {
+                return false;
+            }
+
+            int top = stack.size() - 1;
+            Variable var = varDomains.get(stack.getVar(top));
+            int val = stack.getVal(top);
+            undoPruning();
+
+            if (monitor != null) {
+                monitor.backtracked(top);
+            }
+
+            if (stack.isRight(top)) {
+                restoreValue(var, val);
+            } else {
+                unassignValue(var, val);
+
+                if (!restarting) {   //the right branch is only taken when the run goes on
+                    nogoods.refute();
+                    deleteValue(var, val);
+
+                    if (!domainEmpty(var)) {
+                        stack.setRight();
+
+                        if (monitor != null) {
+                            monitor.propagationStarted();
+                            failed = !branchRight(var, val);
+                            monitor.propagationFinished(!failed);
+                        } else {
+                            failed = !branchRight(var, val);
+                        }
+
+                        continue;
+                    }
+
+                    restoreValue(var, val);
+                }
+            }
+
+            nogoods.retract();
+            stack.pop();
+        }
+    }
+
+    //branches left and assigns a value to the current variable, returns false if forward checking wipes out a domain
+    private boolean branchLeft(Variable var, int val){
+        pushCurrentState();    //opens a new level on the trail
+        assignValue(var, val);
+
+        if (symmetries != null) {
+            symmetries.decide(var.getVar(), val);
+        }
+
+        return reviseFutureArcs(var) && nogoods.assigned(var.getVar(), val, trail, pruned -> { }) && breakSymmetries();
+    }
+
+    //branches right once the current value has been deleted from the domain of the variable, returns false if forward
+    //checking wipes out a domain
+    private boolean branchRight(Variable var, int val){
+        pushCurrentState();   //opens a new level on the trail
+
+        if (symmetries != null) {
+            symmetries.refute(var.getVar(), val);
+        }
+
+        return reviseFutureArcs(var) && breakSymmetries();
+    }
+
+    /*
+     * FC-CBJ: the level is the number of positive decisions above the node.
+     * Returns SOLVED once a solution is found, otherwise the conflict set of the failure, which only holds levels above the node.
+     */
+    private BitSet searchCBJ(int level) {
+        if (cancelled || nodesVisited >= nodeLimit) {
+            cancelled = true;
+            stopped = true;
+            return new BitSet();   //an empty conflict set unwinds straight to the root
+        }
+
         if (solutionFound()) {
-            endTime = System.currentTimeMillis();
-            timeTaken = endTime - startTime;
-            printSolution();
-            System.exit(0);
+            if (allSolutions) {
+                solutionsFound++;
+
+                if (listener != null) {
+                    listener.onSolution(assignment);
+                }
+
+                //a solution is not a conflict, so it depends on every decision and the search backtracks chronologically
+                BitSet all = new BitSet();
+                all.set(0, level);
+                return all;
+            }
+
+            solution = assignment.clone();
+            return SOLVED;
         }
 
-        nodesVisited++;   //increments the number of nodes visited
+        nodesVisited++;
 
-        Variable var = selectVar(varList);
+        if (monitor != null) {
+            monitor.nodeVisited(level + 1);
+        }
+
+        Variable var = varDomains.get(heuristic.select());
         int val = selectVal(var);
+        BitSet conflict = branchLeftCBJ(var, val, level);
 
-        branchLeft(varList, var, val);
-        branchRight(varList, var, val);
+        if (conflict == SOLVED || !conflict.get(level)) {   //x = val played no part in the failure, so x != val would fail too
+            return conflict;
+        }
+
+        conflict.clear(level);   //the reasons x = val failed, which explain x != val
+        return branchRightCBJ(var, val, level, conflict);
     }
 
-    //branches left and assigns a value to the current variable
-    private void branchLeft(List<Variable> varList, Variable var, int val){
-        pushCurrentState();    //saves the current state of the search (List<Variable>) to the stack
+    //FC-CBJ left branch: assigns the value at the given level, returns SOLVED or the conflict set of the failure
+    private BitSet branchLeftCBJ(Variable var, int val, int level) {
+        pushCurrentState();
         assignValue(var, val);
 
-        if (reviseFutureArcs(varList, var)) {
-            List<Variable> updatedList = removeAssignedVar(varList, var);   //passes the updated list of variables for the search
-            searchFC(updatedList);
+        if (monitor != null) {
+            monitor.propagationStarted();
+        }
+
+        BitSet conflict = checkForward(var, level);
+
+        if (monitor != null) {
+            monitor.propagationFinished(conflict == null);
+        }
+
+        if (conflict == null) {
+            conflict = searchCBJ(level + 1);
+
+            if (conflict == SOLVED) {
+                return SOLVED;
+            }
         }
 
         undoPruning();
         unassignValue(var, val);
+        clearPastFc(var, level);
+
+        if (monitor != null) {
+            monitor.backtracked(level);
+        }
+
+        return conflict;
     }
 
-    //branches right and removes the current value assigned from  the domain of the variable
-    private void branchRight(List<Variable> varList, Variable var, int val){
+    //FC-CBJ right branch: removes the value, explained by the given conflict set, and searches on at the same level
+    private BitSet branchRightCBJ(Variable var, int val, int level, BitSet explanation) {
+        BitSet saved = pastFc[var.getVar()];
+        pastFc[var.getVar()] = (BitSet) saved.clone();
+        pastFc[var.getVar()].or(explanation);
         deleteValue(var, val);
+        BitSet conflict;
+
+        if (domainEmpty(var)) {
+            conflict = (BitSet) pastFc[var.getVar()].clone();
+        } else {
+            int[] neighbours = csp.getNeighbours(var.getVar());
+            BitSet[] savedNeighbours = new BitSet[neighbours.length];
+            pushCurrentState();
+            conflict = reviseRefuted(var, savedNeighbours);
 
-        if (!domainEmpty(var)) {
-            pushCurrentState();   //saves the current state of the search (List<Variable>) to the stack
+            if (conflict == null) {
+                conflict = searchCBJ(level);
 
-            if (reviseFutureArcs(varList, var)) {
-                searchFC(varList);
+                if (conflict == SOLVED) {
+                    return SOLVED;
+                }
             }
 
             undoPruning();
-        } 
+
+            for (int i = 0; i < neighbours.length; i++) {
+                if (savedNeighbours[i] != null) {
+                    pastFc[neighbours[i]] = savedNeighbours[i];
+                }
+            }
+        }
 
         restoreValue(var, val);
+        pastFc[var.getVar()] = saved;
+        return conflict;
     }
 
-    //revises all the future arcs 
-    private boolean reviseFutureArcs(List<Variable> varList, Variable var) {
-        boolean consistent = true;
+    //FC-CBJ forward check: revises the unassigned neighbours, adding the level to the past-fc set of each one pruned
+    //returns null, or the conflict set of a wipe-out
+    private BitSet checkForward(Variable var, int level) {
+        int[] neighbours = csp.getNeighbours(var.getVar());
+        BinaryConstraint[] neighbourConstraints = csp.getNeighbourConstraints(var.getVar());
 
-        for (int i = 0; i < varList.size(); i++) {
-            if (varList.get(i).getVar() != var.getVar()) {
-                consistent = revise(var, varList.get(i));
-
-                if (!consistent) {
-                    return false;
-                }
+        for (int i = 0; i < neighbours.length; i++) {
+            if (assignment[neighbours[i]] != UNASSIGNED) {
+                continue;
             }
-        }
 
-        return true;
-    }
+            Variable futureVar = varDomains.get(neighbours[i]);
+            int size = futureVar.domainSize();
+            boolean supported = revise(var, futureVar, neighbourConstraints[i]);
 
-    //revises the arc between the current variable and the future variable
-    private boolean revise(Variable var, Variable futureVar) {
-        List<Integer> newDomain = new ArrayList<>();
-        boolean pruned = false;
-        arcRevisions++;  //increments the number of arc revisions
+            if (futureVar.domainSize() < size) {
+                pastFc[neighbours[i]].set(level);
+            }
 
-        //goes through all the constraints and checks if the current variable and future variable are in the constraint
-        for (BinaryConstraint bc : constraints) {
-            if (bc.getFirstVar() == var.getVar() && bc.getSecondVar() == futureVar.getVar()) {
-                for(int i = 0; i < varDomains.size(); i++) {
-                    if (varDomains.get(i).getVar() == var.getVar()) {
-                        for (int j = 0; j < varDomains.get(i).domainSize(); j++) {
-                            for (BinaryTuple tuple : bc.getTuples()) {
-                                if (tuple.getVal1() == varDomains.get(i).getDomain().get(j)) {
-                                    newDomain.add(tuple.getVal2());   //adds valid values to the new domain of the future variable
-                                    pruned = true;
-                                }
-                            }
-                        }                //Pyramid of Doom (1)
-                    }
-                }
-            } else if (bc.getFirstVar() == futureVar.getVar() && bc.getSecondVar() == var.getVar()) {
-                for(int i = 0; i < varDomains.size(); i++) {
-                    if (varDomains.get(i).getVar() == var.getVar()) {
-                        for (int j = 0; j < varDomains.get(i).domainSize(); j++) {
-                            for (BinaryTuple tuple : bc.getTuples()) {
-                                if (tuple.getVal2() == varDomains.get(i).getDomain().get(j)) {  //
-                                    newDomain.add(tuple.getVal1());   //adds valid values to the new domain of the future variable
-                                    pruned = true;
-                                }
-                            }
-                        }
-                    }
-                } 
+            if (!supported) {   //the wipe-out depends on every decision that pruned the domain
+                return (BitSet) pastFc[neighbours[i]].clone();
             }
         }
 
-        //checks if the domain of the future variable has been pruned
-        if (pruned) {
-            List<Integer> updatedDomain = new ArrayList<>();
+        return null;
+    }
 
-            for (int num = 0; num < varDomains.size(); num++) {
-                if (varDomains.get(num).getVar() == futureVar.getVar()) {
-                    for (int i = 0; i < varDomains.get(num).domainSize(); i++) {
-                        updatedDomain.add(varDomains.get(num).getDomain().get(i));
-                    }
+    //FC-CBJ revision after a value is refuted: a neighbour pruned because of it inherits the past-fc set of the variable,
+    //its old set is kept in savedNeighbours to be put back; returns null, or the conflict set of a wipe-out
+    private BitSet reviseRefuted(Variable var, BitSet[] savedNeighbours) {
+        int[] neighbours = csp.getNeighbours(var.getVar());
+        BinaryConstraint[] neighbourConstraints = csp.getNeighbourConstraints(var.getVar());
 
-                    for (int j = 0; j < varDomains.get(num).domainSize(); j++) {
-                        if (!newDomain.contains(varDomains.get(num).getDomain().get(j))) {
-                            int index = updatedDomain.indexOf(varDomains.get(num).getDomain().get(j));
-                            updatedDomain.remove(index);
-                        }
-                    }
+        for (int i = 0; i < neighbours.length; i++) {
+            if (assignment[neighbours[i]] != UNASSIGNED) {
+                continue;
+            }
 
-                    varDomains.get(futureVar.getVar()).setDomain(updatedDomain);   //updates the domain of the future variable
-                }
+            Variable futureVar = varDomains.get(neighbours[i]);
+            int size = futureVar.domainSize();
+            boolean supported = revise(var, futureVar, neighbourConstraints[i]);
+
+            if (futureVar.domainSize() < size) {
+                savedNeighbours[i] = pastFc[neighbours[i]];
+                pastFc[neighbours[i]] = (BitSet) savedNeighbours[i].clone();
+                pastFc[neighbours[i]].or(pastFc[var.getVar()]);
             }
 
-            if (updatedDomain.isEmpty()) {   //checks if the domain of the future variable is empty
-                return false;
-            } 
+            if (!supported) {
+                return (BitSet) pastFc[neighbours[i]].clone();
+            }
         }
 
-        return true;
+        return null;
     }
 
-    //undoes the pruning by restoring the previous state of the search
-    private void undoPruning() {
-        while (!previousState.isEmpty()) {
-            varDomains = previousState.pop();
-            break;
+    //forgets the pruning done by the decision at the given level once it is undone
+    private void clearPastFc(Variable var, int level) {
+        for (int neighbour : csp.getNeighbours(var.getVar())) {
+            pastFc[neighbour].clear(level);
         }
     }
 
-    //saves the current state of the search (List<Variable>) to the stack by making a copy of the list
-    public void pushCurrentState() {
-        List<Variable> copyVarList = new ArrayList<>();
-
-        for (Variable var : varDomains) {
-            List<Integer> domain = new ArrayList<>();
+    //revises the arcs from the current variable to its unassigned neighbours
+    private boolean reviseFutureArcs(Variable var) {
+        int[] neighbours = csp.getNeighbours(var.getVar());
+        BinaryConstraint[] neighbourConstraints = csp.getNeighbourConstraints(var.getVar());
 
-            for (int i = 0; i < var.domainSize(); i++) {
-                domain.add(var.getDomain().get(i));
+        for (int i = 0; i < neighbours.length; i++) {
+            if (assignment[neighbours[i]] == UNASSIGNED && !revise(var, varDomains.get(neighbours[i]), neighbourConstraints[i])) {
+                return false;
             }
+        }
 
-            Variable variable = new Variable(var.getVar(), domain);
-            copyVarList.add(variable);
+        return true;
+    }
 
+    //revises the arc between the current variable and the future variable
+    private boolean revise(Variable var, Variable futureVar, BinaryConstraint bc) {
+        if (profiler == null) {
+            return reviseArc(var, futureVar, bc);
         }
 
-        previousState.push(copyVarList);
+        Domain futureDomain = futureVar.getDomain();
+        int size = futureDomain.size();
+        long checks = constraintChecks;
+        long start = System.nanoTime();
+        boolean supported = reviseArc(var, futureVar, bc);
+        profiler.revised(futureVar.getVar(), var.getVar(), constraintChecks - checks, System.nanoTime() - start,
+                size - futureDomain.size(), futureDomain.isEmpty());
+        return supported;
     }
 
-    //removes the current variable that has been assigned a value
-    private List<Variable> removeAssignedVar(List<Variable> varList, Variable removeVar) {
-        List<Variable> updatedList = new ArrayList<>();
+    private boolean reviseArc(Variable var, Variable futureVar, BinaryConstraint bc) {
+        Domain domain = var.getDomain();
+        Domain futureDomain = futureVar.getDomain();
+        long[] supportWords = bc.getSupportWords(futureVar.getVar());
+        boolean changed = false;
+        arcRevisions++;  //increments the number of arc revisions
+
+        //with at most 64 values on both sides each value is tested with a single AND of its row and the current domain
+        if (supportWords != null && futureDomain.isSingleWord()) {
+            long word = domain.getWords()[0];
+            long unsupported = 0;
 
-        for (Variable var : varList) {
-            List<Integer> domain = new ArrayList<>();
-            Variable variable;
+            for (long bits = futureDomain.getWords()[0]; bits != 0; bits &= bits - 1) {
+                int i = Long.numberOfTrailingZeros(bits);
+                constraintChecks++;
 
-            for (int i = 0; i < var.domainSize(); i++) {
-                domain.add(var.getDomain().get(i));
+                if ((supportWords[i] & word) == 0) {
+                    unsupported |= 1L << i;
+                }
             }
 
-            if (var.getVar() != removeVar.getVar()) {
-                variable = new Variable(var.getVar(), domain);
-                updatedList.add(variable);
+            for (long bits = unsupported; bits != 0; bits &= bits - 1) {
+                trail.prune(futureDomain, futureDomain.getOffset() + Long.numberOfTrailingZeros(bits));
+            }
+
+            changed = unsupported != 0;
+        } else if (bc.canPrune(domain)) {   //an intensional constraint may be unable to prune anything yet, e.g. not-equal until the domain is a singleton
+            //removes every value of the future variable that has no support in the domain of the current variable
+            for (int val = futureDomain.min(); val != Domain.NONE; val = futureDomain.next(val)) {
+                constraintChecks++;
+
+                if (!bc.hasSupport(futureVar.getVar(), val, domain)) {
+                    changed = true;
+                    trail.prune(futureDomain, val);
+                }
             }
         }
 
-        return updatedList;
-    }
+        if (changed) {
+            heuristic.pruned(futureVar.getVar());
+        }
 
-    //selects the variable with the smallest domain 
-    private Variable selectVar(List<Variable> varList) {
-        Variable smallestDomain = varList.get(0);
+        if (futureDomain.isEmpty()) {   //checks if the domain of the future variable is empty
+            heuristic.wipedOut(futureVar.getVar(), var.getVar());
 
-        for (int i = 0; i < varList.size(); i++) {
-            if (smallestDomain.domainSize() > varList.get(i).domainSize()) {
-                smallestDomain = varList.get(i);
+            if (monitor != null) {
+                monitor.wipedOut(futureVar.getVar(), var.getVar());
             }
+
+            return false;
         }
 
-        return smallestDomain;
+        return true;
     }
 
-    //selects the first value in the domain of the variable in ascending order
-    private int selectVal(Variable var) {
-        int selectedVal = 0;
+    //prunes the images of the refuted decisions under the symmetries still unbroken, returns false if a domain is wiped out
+    private boolean breakSymmetries() {
+        return symmetries == null || symmetries.propagate(trail, pruned -> { });
+    }
 
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                varDomains.get(i).getDomain().sort(null);
-                selectedVal = varDomains.get(i).getDomain().get(0);
-                break;
-            }
+    //undoes the pruning by restoring the values removed since the last saved state
+    private void undoPruning() {
+        trail.undo();
+
+        if (symmetries != null) {
+            symmetries.pop();
+        }
+    }
+
+    //saves the current state of the search by opening a new level on the trail
+    public void pushCurrentState() {
+        trail.mark();
+
+        if (symmetries != null) {
+            symmetries.push();
         }
+    }
 
-        return selectedVal;
+    //selects the value to try first
+    private int selectVal(Variable var) {
+        return valueHeuristic.select(var.getVar(), var.getDomain());
     }
 
     //assigns a value to the current variable
     private void assignValue(Variable var, int val) {
-        List<Integer> varDomain = new ArrayList<>();
+        Domain domain = var.getDomain();
         assignment[var.getVar()] = val;
+        heuristic.assigned(var.getVar());
 
-        //updates the domain of that variable so that the assigned value is the only value in the domain
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                varDomain.add(val);
-                varDomains.get(i).setDomain(varDomain);
-                break;
+        //prunes every other value so that the assigned value is the only value in the domain
+        for (int other = domain.min(); other != Domain.NONE; other = domain.next(other)) {
+            if (other != val) {
+                trail.prune(domain, other);
             }
         }
     }
 
     //unassigns the value from the current variable
     private void unassignValue(Variable var, int val) {
-        assignment[var.getVar()] = -1;
+        assignment[var.getVar()] = UNASSIGNED;
+        heuristic.unassigned(var.getVar());
     }
 
     //restores the value to the domain of the current variable
     private void restoreValue(Variable var, int val) {
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                varDomains.get(i).getDomain().add(val);
-                break;
-            }
-        }
+        var.getDomain().add(val);
     }
 
     //delets the value from the domain of the current variable
     private void deleteValue(Variable var, int val) {
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                int index = varDomains.get(i).getDomain().indexOf(val);
-                varDomains.get(i).getDomain().remove(index);
-                break;
-            }
-        }
+        var.getDomain().remove(val);
     }
 
     //checks if the domain of the current variable is empty after removing a value from its domain
     private boolean domainEmpty(Variable var) {
-        boolean empty = false;
+        return var.getDomain().isEmpty();
+    }
 
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                empty = varDomains.get(i).getDomain().isEmpty();
-                break;
-            }
+    //fixes a variable to a value before the search starts and propagates it, returns false if a domain is wiped out
+    public boolean assign(int var, int val) {
+        Variable variable = varDomains.get(var);
+
+        if (!consistent || !variable.getDomain().contains(val)) {
+            consistent = false;
+            return false;
         }
 
-        return empty;
+        assignValue(variable, val);
+        consistent = reviseFutureArcs(variable);
+        return consistent;
+    }
+
+    //assigns a value and forward checks it on a new level of the trail, to be undone with undoProbe, returns false if a domain is wiped out
+    public boolean probe(int var, int val) {
+        Variable variable = varDomains.get(var);
+        pushCurrentState();
+        assignValue(variable, val);
+        return reviseFutureArcs(variable);
+    }
+
+    //undoes the last probe
+    public void undoProbe(int var, int val) {
+        undoPruning();
+        unassignValue(varDomains.get(var), val);
+    }
+
+    public Domain getDomain(int var) {
+        return varDomains.get(var).getDomain();
+    }
+
+    //asks a running search to stop at the next node
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public int[] getSolution() {
+        return solution;
+    }
+
+    public long getSolutionsFound() {
+        return solutionsFound;
+    }
+
+    public int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    public int getArcRevisions() {
+        return arcRevisions;
+    }
+
+    public long getConstraintChecks() {
+        return constraintChecks;
+    }
+
+    public int getRestarts() {
+        return noRestarts;
+    }
+
+    public int getNogoods() {
+        return nogoods.size();
+    }
+
+    public long getTimeTaken() {
+        return timeTaken;
     }
 
     //checks if a solution has been found
     private boolean solutionFound() {
         for (int i = 0; i < assignment.length; i++) {
-            if (assignment[i] == -1) {
+            if (assignment[i] == UNASSIGNED) {
                 return false;
             }
         }
@@ -326,12 +730,22 @@ public class FC {
     public void printSolution() {
         System.out.println("Solution: ");
 
-        for (int i = 0; i < assignment.length; i++) {
-            System.out.println("Variable " + i + " = " + assignment[i]);
+        for (int i = 0; i < solution.length; i++) {
+            System.out.println("Variable " + i + " = " + solution[i]);
         }
 
         System.out.println("Nodes visited: " + nodesVisited);
         System.out.println("Arc revisions: " + arcRevisions);
+        System.out.println("Constraint checks: " + constraintChecks);
+
+        if (restarts != RestartSchedule.NONE) {
+            System.out.println("Restarts: " + noRestarts + " (" + nogoods.size() + " nogoods)");
+        }
+
+        if (symmetries != null) {
+            System.out.println("Values pruned by symmetry breaking: " + symmetries.getPruned());
+        }
+
         System.out.println("Time taken: " + timeTaken + "ms");
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+import java.util.Arrays;
+
+/*
+ * This class counts non-negative values in buckets of powers of two, bucket k holding the values below 2^k and at least 2^(k-1).
+ * It is written by one thread and may be read from another, which then sees a recent if not exact state.
+ */
+
+public class Histogram {
+    private final long[] buckets = new long[64];
+    private volatile long count = 0;
+    private volatile long sum = 0;
+    private volatile long max = 0;
+
+    public void record(long value) {
+        buckets[64 - Long.numberOfLeadingZeros(value)]++;
+        sum += value;
+        max = Math.max(max, value);
+        count++;
+    }
+
+    public void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return (count == 0) ? 0 : (double) sum / count;
+    }
+
+    //upper bound of the bucket holding the given quantile, or 0 if nothing was recorded
+    public long getPercentile(double quantile) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+
+        for (int k = 0; k < buckets.length; k++) {
+            seen += buckets[k];
+
+            if (seen >= rank && seen > 0) {
+                return Math.min((k == 0) ? 0 : (1L << k) - 1, max);
+            }
+        }
+
+        return max;
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/*
+ * This class is the output used by the instance generators.
+ * A file name ending in .cspb is written in the binary format of BinaryCSPWriter, with tuples going straight into
+ * the support matrices, and any other name gets the text .csp format.
+ * Layout text (comments and blank lines) only appears in text files.
+ * Constraints can also be given intensionally (not-equal, difference, offset), which text files write as one relation line.
+ */
+
+public class InstanceWriter implements Closeable {
+    private final String fileName;
+    private final BufferedWriter text;   //text output, null when writing binary
+    private int[][] domainBounds;   //bounds of the variables declared so far, for binary output
+    private int noDomains = 0;
+    private ArrayList<BinaryConstraint> constraints = new ArrayList<>();   //constraints for binary output
+    private BinaryConstraint current;   //constraint receiving tuples, for binary output
+
+    public InstanceWriter(String fileName) throws IOException {
+        this.fileName = fileName;
+        this.text = fileName.endsWith(".cspb") ? null : new BufferedWriter(new FileWriter(fileName));
+    }
+
+    //writes layout text, such as comments and blank lines, to a text file
+    public void text(String layout) throws IOException {
+        if (text != null) {
+            text.write(layout);
+        }
+    }
+
+    public void variables(int n) throws IOException {
+        domainBounds = new int[n][2];
+
+        if (text != null) {
+            text.write(n + "\n");
+        }
+    }
+
+    //declares the domain of the next variable
+    public void domain(int lb, int ub) throws IOException {
+        domainBounds[noDomains][0] = lb;
+        domainBounds[noDomains++][1] = ub;
+
+        if (text != null) {
+            text.write(lb + ", " + ub + "\n");
+        }
+    }
+
+    //starts a constraint, the tuples written next belong to it
+    public void constraint(int firstVar, int secondVar) throws IOException {
+        if (text != null) {
+            text.write("c(" + firstVar + ", " + secondVar + ")\n");
+        } else {
+            current = new BinaryConstraint(firstVar, secondVar, domainBounds[firstVar][0], domainBounds[firstVar][1],
+                    domainBounds[secondVar][0], domainBounds[secondVar][1]);
+            constraints.add(current);
+        }
+    }
+
+    //writes a constraint given by a relation instead of tuples
+    public void intensional(BinaryConstraint constraint) throws IOException {
+        if (text != null) {
+            text.write(constraint.toString());
+        } else {
+            constraints.add(constraint);
+        }
+    }
+
+    public void tuple(int val1, int val2) throws IOException {
+        if (text != null) {
+            text.write(val1 + ", " + val2 + "\n");
+        } else {
+            current.addTuple(val1, val2);
+        }
+    }
+
+    public void close() throws IOException {
+        if (text != null) {
+            text.close();
+        } else {
+            new BinaryCSPWriter().writeBinaryCSP(new BinaryCSP(domainBounds, constraints), fileName);
+        }
+    }
+}
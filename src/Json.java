@@ -0,0 +1,27 @@
+import java.util.Locale;
+
+/*
+ * This class holds what the JSON writers of the batch mode and the macro benchmark share.
+ */
+
+final class Json {
+    private Json() {
+    }
+
+    //a JSON string holding the text, with quotes, backslashes and control characters escaped
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+
+        return quoted.append("\"").toString();
+    }
+}
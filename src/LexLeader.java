@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This class breaks the symmetries of a group statically with lex-leader constraints: of all the solutions a symmetry g maps
+ * onto each other only those with X <=lex g(X) are kept, variables being compared in index order.
+ * Only the first variable i that g moves is compared, which stays binary: g(X)[i] is v whenever X holds a literal y = b that
+ * g maps to i = v, so every such literal forbids the values of i above v. With y = i the values are removed from the initial domain.
+ * The constraints hold for the lex-least solution of every orbit, so at least one solution of each is kept.
+ */
+
+public final class LexLeader {
+    private LexLeader() {
+    }
+
+    //the CSP with the lex-leader constraints of every symmetry of the group added, the given CSP is left unchanged
+    public static BinaryCSP post(BinaryCSP csp, List<Symmetry> group) {
+        int n = csp.getNoVariables();
+        Domain[] domains = new Domain[n];
+
+        for (int x = 0; x < n; x++) {
+            domains[x] = csp.getDomain(x);
+        }
+
+        Map<Long, boolean[][]> forbidden = new HashMap<>();   //key y * n + i: forbidden[b - lb(y)][a - lb(i)] for the pair y = b, i = a
+
+        for (Symmetry symmetry : group) {
+            int i = 0;
+
+            while (i < n && symmetry.fixes(i)) {
+                i++;
+            }
+
+            if (i == n) {   //the identity
+                continue;
+            }
+
+            for (int y = 0; y < n; y++) {
+                for (int b = csp.getLB(y); b <= csp.getUB(y); b++) {
+                    if (symmetry.imageVar(y, b) != i) {
+                        continue;
+                    }
+
+                    int v = symmetry.imageVal(y, b);
+
+                    if (y == i) {
+                        if (b > v) {
+                            domains[i].remove(b);
+                        }
+
+                        continue;
+                    }
+
+                    boolean[][] pairs = forbidden.get((long) y * n + i);
+
+                    if (pairs == null) {
+                        pairs = new boolean[csp.getUB(y) - csp.getLB(y) + 1][csp.getUB(i) - csp.getLB(i) + 1];
+                        forbidden.put((long) y * n + i, pairs);
+                    }
+
+                    for (int a = v + 1; a <= csp.getUB(i); a++) {
+                        pairs[b - csp.getLB(y)][a - csp.getLB(i)] = true;
+                    }
+                }
+            }
+        }
+
+        int[][] domainBounds = new int[n][2];
+
+        for (int x = 0; x < n; x++) {
+            domainBounds[x][0] = csp.getLB(x);
+            domainBounds[x][1] = csp.getUB(x);
+        }
+
+        //a pair that is already constrained gets a new constraint allowing what both allow, so no constraint of csp is changed
+        ArrayList<BinaryConstraint> constraints = new ArrayList<>();
+        Map<Long, boolean[][]> merged = new HashMap<>();
+
+        for (BinaryConstraint constraint : csp.getConstraints()) {
+            int x = constraint.getFirstVar();
+            int y = constraint.getSecondVar();
+
+            if (csp.getConstraint(x, y) != constraint) {   //already conjoined into the first constraint on the pair
+                continue;
+            }
+
+            boolean[][] xy = forbidden.get((long) x * n + y);
+            boolean[][] yx = forbidden.get((long) y * n + x);
+
+            if (xy == null && yx == null) {
+                constraints.add(constraint);
+                continue;
+            }
+
+            constraints.add(restrict(csp, constraint, x, y, xy, yx));
+            merged.put((long) x * n + y, xy);
+            merged.put((long) y * n + x, yx);
+        }
+
+        for (Map.Entry<Long, boolean[][]> entry : forbidden.entrySet()) {
+            if (!merged.containsKey(entry.getKey())) {
+                int y = (int) (entry.getKey() / n);
+                int i = (int) (entry.getKey() % n);
+                boolean[][] other = forbidden.get((long) i * n + y);
+
+                if (other == null || y < i) {   //both directions of a pair go into one constraint
+                    constraints.add(restrict(csp, null, y, i, entry.getValue(), other));
+                }
+            }
+        }
+
+        return new BinaryCSP(new BinaryCSP(domainBounds, constraints), domains);
+    }
+
+    //an extensional constraint on x and y allowing the pairs the constraint (if any) allows and neither table forbids
+    private static BinaryConstraint restrict(BinaryCSP csp, BinaryConstraint constraint, int x, int y, boolean[][] xy, boolean[][] yx) {
+        BinaryConstraint restricted = new BinaryConstraint(x, y, csp.getLB(x), csp.getUB(x), csp.getLB(y), csp.getUB(y));
+
+        for (int a = csp.getLB(x); a <= csp.getUB(x); a++) {
+            for (int b = csp.getLB(y); b <= csp.getUB(y); b++) {
+                boolean allowed = (constraint == null || constraint.allows(a, b))
+                        && (xy == null || !xy[a - csp.getLB(x)][b - csp.getLB(y)])
+                        && (yx == null || !yx[b - csp.getLB(y)][a - csp.getLB(x)]);
+
+                if (allowed) {
+                    restricted.addTuple(a, b);
+                }
+            }
+        }
+
+        return restricted;
+    }
+}
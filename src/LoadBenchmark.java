@@ -0,0 +1,43 @@
+import java.io.File;
+import java.util.Arrays;
+
+/*
+ * This class measures how long BinaryCSPReader takes to load every .csp and .cspb file in a directory.
+ * Each file is loaded a few times to warm up the JIT and then timed over repeated loads.
+ */
+
+public class LoadBenchmark {
+    public static void main(String[] args) {
+        String dir = (args.length > 0) ? args[0] : "instances";
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        File[] files = new File(dir).listFiles((d, name) -> name.endsWith(".csp") || name.endsWith(".cspb"));
+
+        if (files == null) {
+            System.out.println("Usage: java LoadBenchmark [directory] [repetitions]");
+            return;
+        }
+
+        Arrays.sort(files);
+        BinaryCSPReader reader = new BinaryCSPReader();
+        System.out.println(String.format("%-22s %10s %12s %12s %10s", "file", "KB", "constraints", "ms/load", "MB/s"));
+
+        for (File file : files) {
+            BinaryCSP csp = null;
+
+            for (int i = 0; i < 3; i++) {   //warm-up
+                csp = reader.readBinaryCSP(file.getPath());
+            }
+
+            long startTime = System.nanoTime();
+
+            for (int i = 0; i < repetitions; i++) {
+                csp = reader.readBinaryCSP(file.getPath());
+            }
+
+            double ms = (System.nanoTime() - startTime) / 1e6 / repetitions;
+            double kb = file.length() / 1024.0;
+            System.out.println(String.format("%-22s %10.1f %12d %12.3f %10.1f", file.getName(), kb, csp.getConstraints().size(), ms,
+                    kb / 1024 / (ms / 1000)));
+        }
+    }
+}
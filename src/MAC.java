@@ -1,173 +1,437 @@
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.function.IntConsumer;
 
 /*
  * This class contains the Maintaining Arc Consistency algorithm for solving a binary CSP using 2-way search.
  * Uses AC3 to maintain global arc consistency.
+ * The support check inside revise can use plain AC3, the bitset rows of the constraints, residues (AC3rm) or last supports (AC2001).
+ * The search runs on an explicit stack of decisions rather than by recursion, so its depth is not limited by the thread stack.
  */
 
-public class MAC {
-    private LinkedList<Arc> arcsQueue = new LinkedList<>();  //queue used for arc consistency
-    private Stack<List<Variable>> previousState = new Stack<>();  //stack used to undopruning
-    private List<BinaryConstraint> constraints;   //constraints
+public class MAC implements SearchAlgorithm {
+    public enum Propagator {
+        AC3,   //searches for a support from scratch with one constraint check per pair
+        AC3_BIT,   //tests the bitset row of supports against the other domain, one check per row
+        AC3_RM,   //keeps the last support found as a residue and only searches again once it is gone
+        AC2001   //keeps the last support found, backtracked with the trail, and resumes the search after it
+    }
+
+    private static final int UNASSIGNED = Domain.NONE;   //entry of an unassigned variable in the assignment, as a value may be negative
+
+    private ArcQueue arcsQueue;  //queue used for arc consistency
+    private Trail trail;   //trail used to undo pruning
+    private SearchStack stack;   //decisions on the current branch
     private List<Variable> varDomains;   // list of variables and their domains stored in the Variable class
     private BinaryCSP csp;    //csp instance
-    private int[] assignment;   //keeps track of assigned variables
+    private VariableHeuristic heuristic;   //chooses the variable to branch on
+    private ValueHeuristic valueHeuristic;   //chooses the value tried first
+    private int[] assignment;   //keeps track of assigned variables, UNASSIGNED for the others
+    private int[] solution;   //copy of the assignment when a solution is found
+    private volatile boolean cancelled = false;   //set from another thread to stop the search
+    private boolean stopped = false;   //whether the search gave up before the end of the tree, on a cancel or the node limit
+    private long nodeLimit = Long.MAX_VALUE;   //nodes the search may visit before it stops
+    private boolean allSolutions = false;   //whether the search goes on after each solution
+    private SolutionListener listener;   //receives every solution in all-solutions mode, may be null
+    private long solutionsFound = 0;   //solutions found in all-solutions mode
+    private boolean consistent = true;   //false once a variable fixed before the search wipes out a domain
     private int nodesVisited = 0;   //nodes visited
     private int arcRevisions = 0;   //arcs revised
+    private long constraintChecks = 0;   //constraint checks made while looking for supports
+    private Propagator propagator;   //how supports are checked in revise
+    private int[][][] residues;   //residues[x][k][a - lb(x)]: last support of a in the k-th neighbour of x (AC3_RM and AC2001)
+    private int[][] reverseSlots;   //reverseSlots[x][k]: position of x among the neighbours of its k-th neighbour
+    private RestartSchedule restarts = RestartSchedule.NONE;   //when the search starts again from the root
+    private NogoodStore nogoods;   //branch of decisions, and the nogoods recorded from it at restarts
+    private long cutoff = Long.MAX_VALUE;   //nodes the current run may visit before the search restarts
+    private long runNodes = 0;   //nodes visited in the current run
+    private boolean restarting = false;   //set once the current run has reached its cutoff
+    private int noRestarts = 0;   //restarts made
+    private long seed;   //seed of random value ordering and of random tie-breaking with restarts
+    private DynamicSymmetryBreaking symmetries;   //prunes the images of refuted decisions under the symmetries, null if unused
+    private SearchListener monitor;   //receives the events of the search, null unless monitored
+    private ConstraintProfiler profiler;   //receives every arc revision, null unless profiled
+    private IntConsumer requeue = var -> setUpQueue(varDomains.get(var));   //queues the arcs of a variable pruned by a nogood
     private long timeTaken = 0;   //time taken to find a solution
     private long startTime = 0;
     private long endTime = 0;
     private boolean emptyDomainFlag = false;   //flag used to check if a domain is empty after arc revision  
 
     public MAC(BinaryCSP csp) {
+        this(csp, Propagator.AC3_BIT, false);
+    }
+
+    public MAC(BinaryCSP csp, Propagator propagator) {
+        this(csp, propagator, false);
+    }
+
+    //variableQueue selects a queue of changed variables instead of arcs, which suits instances with a high degree
+    public MAC(BinaryCSP csp, Propagator propagator, boolean variableQueue) {
+        this(csp, propagator, variableQueue, VariableHeuristic.Type.DOM);
+    }
+
+    public MAC(BinaryCSP csp, Propagator propagator, boolean variableQueue, VariableHeuristic.Type ordering) {
+        this(csp, propagator, variableQueue, ordering, ValueHeuristic.Type.LEX, 0);
+    }
+
+    //the seed is only used by random value ordering
+    public MAC(BinaryCSP csp, Propagator propagator, boolean variableQueue, VariableHeuristic.Type ordering,
+               ValueHeuristic.Type valueOrdering, long seed) {
         this.csp = csp;
-        initialise(); 
+        this.propagator = propagator;
+        this.heuristic = VariableHeuristic.create(ordering);
+        this.valueHeuristic = ValueHeuristic.create(valueOrdering, seed);
+        this.seed = seed;
+        initialise(variableQueue); 
     }
 
     // initialises the variables, domains and constraints
-    public void initialise() {
+    public void initialise(boolean variableQueue) {
         varDomains = new ArrayList<>();
-        constraints = csp.getConstraints();
         assignment = new int[csp.getNoVariables()];
+        int totalValues = 0;
 
         for (int i = 0; i < csp.getNoVariables(); i++) {
-            List<Integer> domain = new ArrayList<>();
-
-            for (int j = csp.getLB(i); j <= csp.getUB(i); j++) {
-                domain.add(j);
-            }
-
+            Domain domain = csp.getDomain(i);
             Variable variable = new Variable(i, domain);    
             varDomains.add(variable);
-            assignment[i] = -1;
+            assignment[i] = UNASSIGNED;
+            totalValues += domain.size();
+            consistent &= !domain.isEmpty();   //preprocessing may have wiped out a domain
         }
 
-        //initialises the queue with all the arcs
-        for (BinaryConstraint constraint : constraints) {
-            Arc arc1 = new Arc(constraint.getFirstVar(), constraint.getSecondVar());
-            Arc arc2 = new Arc(constraint.getSecondVar(), constraint.getFirstVar());
+        trail = new Trail(totalValues);
+        stack = new SearchStack(csp.getNoVariables() + totalValues);
+        heuristic.initialise(csp, varDomains);
+        valueHeuristic.initialise(csp, varDomains);
+        nogoods = new NogoodStore(csp, varDomains);
+
+        int noArcs = 0;
 
-            arcsQueue.add(arc1);
-            arcsQueue.add(arc2);
+        for (int i = 0; i < csp.getNoVariables(); i++) {
+            noArcs += csp.getNeighbours(i).length;
+        }
+
+        arcsQueue = new ArcQueue(csp.getNoVariables(), noArcs, variableQueue);
+
+        if (propagator == Propagator.AC3_RM || propagator == Propagator.AC2001) {
+            initialiseResidues();
+        }
+
+        //initialises the queue with all the arcs
+        for (int i = 0; i < csp.getNoVariables(); i++) {
+            if (variableQueue) {
+                arcsQueue.addVariable(i);
+            } else {
+                for (int neighbour : csp.getNeighbours(i)) {
+                    arcsQueue.addArc(i, neighbour);
+                }
+            }
         }
     }
 
-    //starts the search
-    public void solve() {
-        startTime = System.currentTimeMillis();
-        
-        if (macAC3()) {   //runs AC3 before starting the search to reduce the variable domains 
-            searchMAC(varDomains);
-        } else {
-            System.out.println("Search terminated: unsolvable csp");
+    //sets every residue to NONE and finds the position of each variable among the neighbours of its neighbours
+    private void initialiseResidues() {
+        residues = new int[csp.getNoVariables()][][];
+        reverseSlots = new int[csp.getNoVariables()][];
+
+        for (int i = 0; i < csp.getNoVariables(); i++) {
+            int[] neighbours = csp.getNeighbours(i);
+            residues[i] = new int[neighbours.length][csp.getUB(i) - csp.getLB(i) + 1];
+            reverseSlots[i] = new int[neighbours.length];
+
+            for (int k = 0; k < neighbours.length; k++) {
+                Arrays.fill(residues[i][k], Domain.NONE);
+                reverseSlots[i][k] = Arrays.binarySearch(csp.getNeighbours(neighbours[k]), i);
+            }
         }
     }
 
-    //recursively searches for a solution
-    private void searchMAC(List<Variable> varList) {
-        if (solutionFound()) {
-            endTime = System.currentTimeMillis();
-            timeTaken = endTime - startTime;
-            printSolution();
-            System.exit(0);
+    //restarts the search from the root following the schedule, with the ties of the variable ordering broken at random
+    public void setRestarts(RestartSchedule schedule) {
+        restarts = schedule;
+
+        if (schedule != RestartSchedule.NONE) {
+            heuristic.randomiseTies(seed);
         }
+    }
 
-        nodesVisited++;  //increments the nodes visited
+    //breaks the symmetries of the group during the search, which then only finds solutions that are not symmetric to each other
+    public void setSymmetryBreaking(List<Symmetry> group) {
+        symmetries = (group == null) ? null : new DynamicSymmetryBreaking(group, varDomains);
+        nogoods.setSymmetries(group);
+    }
 
-        Variable var = selectVar(varList);
-        int val = selectVal(var);
+    public void setSearchListener(SearchListener listener) {
+        monitor = listener;
+    }
 
-        pushCurrentState();   //saves the current state of the search 
-        assignValue(var, val);
-        setUpQueue(var);   //adds the relevant arcs for the current variable to the queue before running AC3
+    public void setProfiler(ConstraintProfiler profiler) {
+        this.profiler = profiler;
+    }
 
-        if (macAC3()){
-            List<Variable> newVarList = removeAssignedVar(varList, var);
-            searchMAC(newVarList);
+    public void setNodeLimit(long limit) {
+        nodeLimit = limit;
+    }
+
+    //searches the whole tree, passing every solution to the listener (which may be null), and returns the number of solutions
+    public long solveAll(SolutionListener listener) {
+        this.allSolutions = true;
+        this.listener = listener;
+        solve();
+        return solutionsFound;
+    }
+
+    //starts the search
+    public boolean solve() {
+        startTime = System.nanoTime();
+
+        if (monitor != null) {
+            monitor.searchStarted();
         }
 
-        undoPruning();
-        unassignValue(var, val);
-        deleteValue(var, val);
-
-        if (!domainEmpty(var)) {
-            pushCurrentState();   //saves the current state of the search 
-            setUpQueue(var);   //adds the relevant arcs for the current variable to the queue before running AC3
-            
-            if (macAC3()) {
-                searchMAC(varList);
+        boolean found = consistent && macAC3() && searchWithRestarts();   //runs AC3 before starting the search to reduce the variable domains 
+        endTime = System.nanoTime();
+        timeTaken = (endTime - startTime) / 1_000_000;
+
+        if (monitor != null) {
+            monitor.searchFinished();
+        }
+
+        return found;
+    }
+
+    //runs the search once, or again from the root every time a run reaches the cutoff of the restart schedule
+    private boolean searchWithRestarts() {
+        for (int run = 0; ; run++) {
+            cutoff = restarts.cutoff(run);
+            runNodes = 0;
+            restarting = false;
+
+            if (searchMAC()) {
+                return true;
             }
 
-            undoPruning();
-        } 
+            if (!restarting || cancelled) {
+                return false;
+            }
+
+            noRestarts++;
+
+            if (monitor != null) {
+                monitor.restarted();
+            }
+
+            //back at the root, the nogoods of the abandoned branch are added and the values they remove for good are propagated
+            if (!nogoods.addPending(trail, requeue)) {
+                arcsQueue.clear();
+                return false;
+            }
 
-        restoreValue(var, val);
+            if (!macAC3()) {
+                return false;
+            }
+        }
     }
 
-    //sets up the queue before running AC3
-    public void setUpQueue(Variable var) {
-        for (BinaryConstraint constraint : constraints) {
-            boolean contains = false;
+    /*
+     * Searches for a solution from the current node, returns true once one is found.
+     * A node that propagated without a wipe-out is expanded by pushing a frame for its decision and taking the left branch. When a
+     * branch wipes out a domain, or the subtree under it has been searched, the top frame is backtracked: a left branch is undone
+     * and replaced by the right one, a right branch is undone and its frame popped.
+     */
+    private boolean searchMAC() {
+        boolean failed = false;   //whether the branch of the top frame has failed or been searched
+
+        while (true) {
+            if (!failed) {
+                if (cancelled || nodesVisited >= nodeLimit) {
+                    cancelled = true;   //the restarts stop too
+                    stopped = true;
+                    failed = true;
+                } else if (solutionFound()) {
+                    if (!allSolutions) {
+                        solution = assignment.clone();
+                        return true;
+                    }
 
-            if (constraint.getFirstVar() == var.getVar()) {
-                for (int i = 0; i < arcsQueue.size(); i++) {
-                    if (arcsQueue.get(i).getFirstVar() == constraint.getSecondVar() && arcsQueue.get(i).getSecondVar() == constraint.getFirstVar()) {
-                        contains = true;
-                        break;
+                    solutionsFound++;   //reports the solution and backtracks as if it had failed
+
+                    if (listener != null) {
+                        listener.onSolution(assignment);
                     }
-                }
 
-                if (!contains) {
-                    arcsQueue.add(new Arc(constraint.getSecondVar(), constraint.getFirstVar()));
-                }
-            } else if (constraint.getSecondVar() == var.getVar()) {
-                for (int i = 0; i < arcsQueue.size(); i++) {
-                    if (arcsQueue.get(i).getFirstVar() == constraint.getFirstVar() && arcsQueue.get(i).getSecondVar() == constraint.getSecondVar()) {
-                        contains = true;
-                        break;
+                    failed = true;
+                } else if (runNodes++ >= cutoff) {   //abandons the run, keeping what the branch has refuted
+                    nogoods.recordBranch();
+                    restarting = true;
+                    failed = true;
+                } else {
+                    nodesVisited++;  //increments the nodes visited
+
+                    Variable var = varDomains.get(heuristic.select());
+                    int val = selectVal(var);
+                    stack.push(var.getVar(), val);
+
+                    if (monitor != null) {
+                        monitor.nodeVisited(stack.size());
+                        monitor.propagationStarted();
+                        failed = !branchLeft(var, val);
+                        monitor.propagationFinished(!failed);
+                    } else {
+                        failed = !branchLeft(var, val);
                     }
                 }
 
-                if (!contains) {
-                    arcsQueue.add(new Arc(constraint.getFirstVar(), constraint.getSecondVar()));
+                continue;
+            }
+
+            if (stack.isEmpty()) {
+                return false;
+            }
+
+            int top = stack.size() - 1;
+            Variable var = varDomains.get(stack.getVar(top));
+            int val = stack.getVal(top);
+            undoPruning();
+
+            if (monitor != null) {
+                monitor.backtracked(top);
+            }
+
+            if (stack.isRight(top)) {
+                restoreValue(var, val);
+            } else {
+                unassignValue(var, val);
+
+                if (!restarting) {   //the right branch is only taken when the run goes on
+                    nogoods.refute();
+                    deleteValue(var, val);
+
+                    if (!domainEmpty(var)) {
+                        stack.setRight();
+
+                        if (monitor != null) {
+                            monitor.propagationStarted();
+                            failed = !branchRight(var, val);
+                            monitor.propagationFinished(!failed);
+                        } else {
+                            failed = !branchRight(var, val);
+                        }
+
+                        continue;
+                    }
+
+                    restoreValue(var, val);
                 }
             }
-        }       
+
+            nogoods.retract();
+            stack.pop();
+        }
+    }
+
+    //assigns the value on a new level of the trail and propagates it, returns false if a domain is wiped out
+    private boolean branchLeft(Variable var, int val) {
+        pushCurrentState();   //opens a new level on the trail
+        assignValue(var, val);
+        nogoods.decide(var.getVar(), val);
+        setUpQueue(var);   //adds the relevant arcs for the current variable to the queue before running AC3
+
+        if (symmetries != null) {
+            symmetries.decide(var.getVar(), val);
+        }
+
+        return propagateNogoods(var, val) && propagateAll();
+    }
+
+    //propagates the removal of the value, already deleted, on a new level of the trail, returns false if a domain is wiped out
+    private boolean branchRight(Variable var, int val) {
+        pushCurrentState();   //opens a new level on the trail
+        setUpQueue(var);   //adds the relevant arcs for the current variable to the queue before running AC3
+
+        if (symmetries != null) {
+            symmetries.refute(var.getVar(), val);
+        }
+
+        return propagateAll();
+    }
+
+    //prunes the values ruled out by the nogoods watching the decision, returns false if one of them is violated
+    private boolean propagateNogoods(Variable var, int val) {
+        if (nogoods.assigned(var.getVar(), val, trail, requeue)) {
+            return true;
+        }
+
+        arcsQueue.clear();
+        return false;
+    }
+
+    //runs AC3, then prunes by symmetry breaking and runs AC3 again on what it pruned, until neither removes anything
+    private boolean propagateAll() {
+        if (!macAC3()) {
+            return false;
+        }
+
+        while (symmetries != null) {
+            if (!symmetries.propagate(trail, requeue)) {
+                arcsQueue.clear();
+                return false;
+            }
+
+            if (arcsQueue.isEmpty()) {
+                return true;
+            }
+
+            if (!macAC3()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //sets up the queue before running AC3
+    public void setUpQueue(Variable var) {
+        if (arcsQueue.isVariableBased()) {
+            arcsQueue.addVariable(var.getVar());
+            return;
+        }
+
+        for (int neighbour : csp.getNeighbours(var.getVar())) {
+            arcsQueue.addArc(neighbour, var.getVar());
+        }
     }
     
     //AC3 algorithm for maintaining arc consistency
     public boolean macAC3() {
-        while (arcsQueue.size() != 0) {
-            Arc arc = arcsQueue.pop();
-
-            if (revise(arc)) {   //checks if the domain of the variable in the current arc has been pruned
-                boolean contains = false;
-
-                for (BinaryConstraint constraint : constraints) {
-                    if (constraint.getSecondVar() == arc.getFirstVar() && constraint.getFirstVar() != arc.getSecondVar()) {
-                        for (int i = 0; i < arcsQueue.size(); i++) {
-                            if (arcsQueue.get(i).getFirstVar() == constraint.getFirstVar() && arcsQueue.get(i).getSecondVar() == constraint.getSecondVar()) {
-                                contains = true;
-                                break;
-                            }
-                        }
+        while (!arcsQueue.isEmpty()) {
+            if (monitor != null) {
+                monitor.queueLength(arcsQueue.size());
+            }
 
-                        if (!contains) {
-                            arcsQueue.add(new Arc(constraint.getFirstVar(), constraint.getSecondVar()));
-                        }
-                    } else if (constraint.getFirstVar() == arc.getFirstVar() && constraint.getSecondVar() != arc.getSecondVar()) {
-                        for (int i = 0; i < arcsQueue.size(); i++) {
-                            if (arcsQueue.get(i).getFirstVar() == constraint.getSecondVar() && arcsQueue.get(i).getSecondVar() == constraint.getFirstVar()) {
-                                contains = true;
-                                break;
-                            }
-                        }
+            int entry = arcsQueue.poll();
+
+            if (arcsQueue.isVariableBased()) {
+                //revises every arc towards the changed variable
+                for (int neighbour : csp.getNeighbours(entry)) {
+                    if (revise(neighbour, entry)) {
+                        arcsQueue.addVariable(neighbour);
+                    }
 
-                        if (contains) {
-                            arcsQueue.add(new Arc(constraint.getSecondVar(), constraint.getFirstVar()));
+                    if (emptyDomainFlag) {
+                        break;
+                    }
+                }
+            } else {
+                int firstVar = arcsQueue.firstVar(entry);
+                int secondVar = arcsQueue.secondVar(entry);
+
+                if (revise(firstVar, secondVar)) {   //checks if the domain of the variable in the current arc has been pruned
+                    for (int neighbour : csp.getNeighbours(firstVar)) {
+                        if (neighbour != secondVar) {
+                            arcsQueue.addArc(neighbour, firstVar);
                         }
                     }
                 }
@@ -182,66 +446,60 @@ public class MAC {
         return true;
     }
 
-    //revises the domain of the current variable
-    public boolean revise(Arc arc) {
-        List<Integer> updatedDomain = new ArrayList<>();
+    //revises the domain of the first variable of the arc against the second variable
+    public boolean revise(int firstVar, int secondVar) {
+        if (profiler == null) {
+            return reviseArc(firstVar, secondVar);
+        }
+
+        Domain domain = varDomains.get(firstVar).getDomain();
+        int size = domain.size();
+        long checks = constraintChecks;
+        long start = System.nanoTime();
+        boolean changed = reviseArc(firstVar, secondVar);
+        profiler.revised(firstVar, secondVar, constraintChecks - checks, System.nanoTime() - start, size - domain.size(), domain.isEmpty());
+        return changed;
+    }
+
+    private boolean reviseArc(int firstVar, int secondVar) {
+        Domain domain = varDomains.get(firstVar).getDomain();
+        Domain otherDomain = varDomains.get(secondVar).getDomain();
+        BinaryConstraint constraint = csp.getConstraint(firstVar, secondVar);
         boolean changed = false;
-        boolean empty = false;
         arcRevisions++;   //increments the arc revisions
-        
-        for (Variable var : varDomains) {    
-            if (var.getVar() == arc.getFirstVar()) {
-                for (int i = 0; i < var.domainSize(); i++) {
-                    boolean supported = false;
-
-                    for (Variable var2 : varDomains) {
-                        if (var2.getVar() == arc.getSecondVar()) {
-                            for (int j = 0; j < var2.domainSize(); j++) {
-                                for (BinaryConstraint constraint : constraints) {
-                                    if (constraint.getFirstVar() == var.getVar() && constraint.getSecondVar() == var2.getVar()) {
-                                        for (BinaryTuple tuple : constraint.getTuples()) {
-                                            if (tuple.getVal1() == var.getDomain().get(i) && tuple.getVal2() == var2.getDomain().get(j)) {
-                                                supported = true;
-                                                break;
-                                            }                     //Pyramid of Doom (2)
-                                        }
-                                    } else if (constraint.getFirstVar() == var2.getVar() && constraint.getSecondVar() == var.getVar()) {
-                                        for (BinaryTuple tuple : constraint.getTuples()) {
-                                            if (tuple.getVal1() == var2.getDomain().get(j) && tuple.getVal2() == var.getDomain().get(i)) {
-                                                supported = true;
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
 
-                    if (!supported) {    
-                        changed = true;
-                        updatedDomain.add(var.getDomain().get(i));   //adds the unsupported value to be removed from the domain
-                    }
-                }
-            }
+        //an intensional constraint may be unable to prune anything yet, e.g. not-equal until the other domain is a singleton
+        if (!constraint.canPrune(otherDomain)) {
+            return false;
         }
 
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == arc.getFirstVar()) {
-                for (int j = 0; j < varDomains.get(i).domainSize(); j++) {
-                    if (updatedDomain.contains(varDomains.get(i).getDomain().get(j))) {
-                        int index = varDomains.get(i).getDomain().indexOf(varDomains.get(i).getDomain().get(j));
-                        varDomains.get(i).getDomain().remove(index);   //removes any unsupported values from the domain
-                    }
-                }
+        long[] supportWords = constraint.getSupportWords(firstVar);
+
+        if (propagator == Propagator.AC3_BIT && supportWords != null && domain.isSingleWord()) {
+            changed = reviseWord(domain, supportWords, otherDomain.getWords()[0]);
+        } else {
+            int slot = (residues == null) ? -1 : Arrays.binarySearch(csp.getNeighbours(firstVar), secondVar);
 
-                if (varDomains.get(i).getDomain().isEmpty()) {
-                    empty = true;
+            //removes every value that has no support in the domain of the other variable
+            for (int val = domain.min(); val != Domain.NONE; val = domain.next(val)) {
+                if (!hasSupport(firstVar, secondVar, slot, constraint, val, otherDomain)) {
+                    changed = true;
+                    trail.prune(domain, val);   //removes the unsupported value from the domain
                 }
             }
         }
 
-        if (empty) {   //checks if a domain has been emptied 
+        if (changed) {
+            heuristic.pruned(firstVar);
+        }
+
+        if (domain.isEmpty()) {   //checks if a domain has been emptied 
+            heuristic.wipedOut(firstVar, secondVar);
+
+            if (monitor != null) {
+                monitor.wipedOut(firstVar, secondVar);
+            }
+
             emptyDomainFlag = true;
             arcsQueue.clear();
             return false;
@@ -250,141 +508,259 @@ public class MAC {
         return changed;
     } 
     
-    //undoes the pruning by restoring the previous state of the search
-    private void undoPruning() {
-        while (!previousState.isEmpty()) {
-            varDomains = previousState.pop();
-            break;
-        }
-    }
+    //revises a domain of at most 64 values against another, a value is supported if its row ANDed with the other domain is non-zero
+    private boolean reviseWord(Domain domain, long[] supportWords, long otherWord) {
+        long unsupported = 0;
 
-    //saves the current state of the search (List<Variable>) to the stack by making a copy of the list
-    public void pushCurrentState() {
-        List<Variable> copyVarList = new ArrayList<>();
-
-        for (Variable var : varDomains) {
-            List<Integer> domain = new ArrayList<>();
+        for (long bits = domain.getWords()[0]; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            constraintChecks++;
 
-            for (int i = 0; i < var.domainSize(); i++) {
-                domain.add(var.getDomain().get(i));
+            if ((supportWords[i] & otherWord) == 0) {
+                unsupported |= 1L << i;
             }
+        }
 
-            Variable variable = new Variable(var.getVar(), domain);
-            copyVarList.add(variable);
-
+        for (long bits = unsupported; bits != 0; bits &= bits - 1) {
+            trail.prune(domain, domain.getOffset() + Long.numberOfTrailingZeros(bits));   //removes the unsupported value from the domain
         }
 
-        previousState.push(copyVarList);
+        return unsupported != 0;
     }
 
-    //removes the current variable that has been assigned a value
-    private List<Variable> removeAssignedVar(List<Variable> varList, Variable removeVar) {
-        List<Variable> updatedList = new ArrayList<>();
+    //checks if a value of the first variable has a support in the domain of the second variable
+    private boolean hasSupport(int firstVar, int secondVar, int slot, BinaryConstraint constraint, int val, Domain otherDomain) {
+        switch (propagator) {
+            case AC3:
+                return seekSupport(firstVar, constraint, val, otherDomain, otherDomain.min()) != Domain.NONE;
+
+            case AC3_RM: {
+                int[] residue = residues[firstVar][slot];
+                int index = val - csp.getLB(firstVar);
+
+                if (otherDomain.contains(residue[index])) {
+                    return true;
+                }
+
+                int support = seekSupport(firstVar, constraint, val, otherDomain, otherDomain.min());
 
-        for (Variable var : varList) {
-            List<Integer> domain = new ArrayList<>();
-            Variable variable;
+                if (support == Domain.NONE) {
+                    return false;
+                }
 
-            for (int i = 0; i < var.domainSize(); i++) {
-                domain.add(var.getDomain().get(i));
+                //val also supports the value found, so the residue is stored in both directions
+                residue[index] = support;
+                residues[secondVar][reverseSlots[firstVar][slot]][support - csp.getLB(secondVar)] = val;
+                return true;
             }
 
-            if (var.getVar() != removeVar.getVar()) {
-                variable = new Variable(var.getVar(), domain);
-                updatedList.add(variable);
+            case AC2001: {
+                int[] last = residues[firstVar][slot];
+                int index = val - csp.getLB(firstVar);
+
+                if (otherDomain.contains(last[index])) {
+                    return true;
+                }
+
+                //no value before the last support can support val, so the search resumes after it
+                int from = (last[index] == Domain.NONE) ? otherDomain.min() : otherDomain.next(last[index]);
+                int support = seekSupport(firstVar, constraint, val, otherDomain, from);
+
+                if (support == Domain.NONE) {
+                    return false;
+                }
+
+                trail.set(last, index, support);
+                return true;
             }
-        }
 
-        return updatedList;
+            default:
+                constraintChecks++;
+                return constraint.hasSupport(firstVar, val, otherDomain);
+        }
     }
 
-    //selects the variable with the smallest domain 
-    private Variable selectVar(List<Variable> varList) {
-        Variable smallestDomain = varList.get(0);
+    //returns the first value of the other domain from the given value onwards that supports val, or NONE
+    private int seekSupport(int var, BinaryConstraint constraint, int val, Domain otherDomain, int from) {
+        boolean first = (constraint.getFirstVar() == var);
 
-        for (int i = 0; i < varList.size(); i++) {
-            if (smallestDomain.domainSize() > varList.get(i).domainSize()) {
-                smallestDomain = varList.get(i);
+        for (int otherVal = from; otherVal != Domain.NONE; otherVal = otherDomain.next(otherVal)) {
+            constraintChecks++;
+
+            if (first ? constraint.allows(val, otherVal) : constraint.allows(otherVal, val)) {
+                return otherVal;
             }
         }
 
-        return smallestDomain;
+        return Domain.NONE;
     }
 
-    //selects the first value in the domain of the variable in ascending order
-    private int selectVal(Variable var) {
-        int selectedVal = 0;
+    //undoes the pruning by restoring the values removed since the last saved state
+    private void undoPruning() {
+        trail.undo();
 
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                varDomains.get(i).getDomain().sort(null);
-                selectedVal = varDomains.get(i).getDomain().get(0);
-                break;
-            }
+        if (symmetries != null) {
+            symmetries.pop();
         }
+    }
 
-        return selectedVal;
+    //saves the current state of the search by opening a new level on the trail
+    public void pushCurrentState() {
+        trail.mark();
+
+        if (symmetries != null) {
+            symmetries.push();
+        }
+    }
+
+    //selects the value to try first
+    private int selectVal(Variable var) {
+        return valueHeuristic.select(var.getVar(), var.getDomain());
     }
 
     //assigns a value to the current variable
     private void assignValue(Variable var, int val) {
-        List<Integer> varDomain = new ArrayList<>();
+        Domain domain = var.getDomain();
         assignment[var.getVar()] = val;
+        heuristic.assigned(var.getVar());
 
-        //updates the domain of that variable so that the assigned value is the only value in the domain
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                varDomain.add(val);
-                varDomains.get(i).setDomain(varDomain);
-                break;
+        //prunes every other value so that the assigned value is the only value in the domain
+        for (int other = domain.min(); other != Domain.NONE; other = domain.next(other)) {
+            if (other != val) {
+                trail.prune(domain, other);
             }
         }
     }
 
     //unassigns the value from the current variable
     private void unassignValue(Variable var, int val) {
-        assignment[var.getVar()] = -1;
+        assignment[var.getVar()] = UNASSIGNED;
+        heuristic.unassigned(var.getVar());
     }
 
     //restores the value to the domain of the current variable
     private void restoreValue(Variable var, int val) {
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                varDomains.get(i).getDomain().add(val);
-                break;
-            }
-        }
+        var.getDomain().add(val);
     }
 
     //delets the value from the domain of the current variable
     private void deleteValue(Variable var, int val) {
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                int index = varDomains.get(i).getDomain().indexOf(val);
-                varDomains.get(i).getDomain().remove(index);
-                break;
-            }
-        }
+        var.getDomain().remove(val);
     }
 
     //checks if the domain of the current variable is empty after removing a value from its domain
     private boolean domainEmpty(Variable var) {
-        boolean empty = false;
+        return var.getDomain().isEmpty();
+    }
 
-        for (int i = 0; i < varDomains.size(); i++) {
-            if (varDomains.get(i).getVar() == var.getVar()) {
-                empty = varDomains.get(i).getDomain().isEmpty();
-                break;
-            }
+    //fixes a variable to a value before the search starts and propagates it, returns false if a domain is wiped out
+    public boolean assign(int var, int val) {
+        Variable variable = varDomains.get(var);
+
+        if (!consistent || !variable.getDomain().contains(val)) {
+            consistent = false;
+            return false;
+        }
+
+        assignValue(variable, val);
+        setUpQueue(variable);
+        consistent = macAC3();
+        return consistent;
+    }
+
+    //removes a value before the search starts and propagates it, returns false if a domain is wiped out
+    public boolean prune(int var, int val) {
+        Variable variable = varDomains.get(var);
+
+        if (!consistent || !trail.prune(variable.getDomain(), val)) {
+            return consistent;
+        }
+
+        if (variable.getDomain().isEmpty()) {
+            arcsQueue.clear();
+            consistent = false;
+            return false;
         }
 
-        return empty;
+        setUpQueue(variable);
+        consistent = macAC3();
+        return consistent;
+    }
+
+    //assigns a value and propagates it on a new level of the trail, to be undone with undoProbe, returns false if a domain is wiped out
+    public boolean probe(int var, int val) {
+        Variable variable = varDomains.get(var);
+        pushCurrentState();
+        assignValue(variable, val);
+        setUpQueue(variable);
+        return macAC3();
+    }
+
+    //undoes the last probe
+    public void undoProbe(int var, int val) {
+        undoPruning();
+        unassignValue(varDomains.get(var), val);
+    }
+
+    //propagates the arcs still queued, which after construction is every arc, returns false if a domain is wiped out
+    public boolean propagate() {
+        consistent = consistent && macAC3();
+        return consistent;
+    }
+
+    public Domain getDomain(int var) {
+        return varDomains.get(var).getDomain();
+    }
+
+    //asks a running search to stop at the next node
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public int[] getSolution() {
+        return solution;
+    }
+
+    public long getSolutionsFound() {
+        return solutionsFound;
+    }
+
+    public int getNodesVisited() {
+        return nodesVisited;
+    }
+
+    public int getArcRevisions() {
+        return arcRevisions;
+    }
+
+    public long getConstraintChecks() {
+        return constraintChecks;
+    }
+
+    public int getRestarts() {
+        return noRestarts;
+    }
+
+    public int getNogoods() {
+        return nogoods.size();
+    }
+
+    public long getTimeTaken() {
+        return timeTaken;
     }
 
     //checks if a solution has been found
     private boolean solutionFound() {
         for (int i = 0; i < assignment.length; i++) {
-            if (assignment[i] == -1) {
+            if (assignment[i] == UNASSIGNED) {
                 return false;
             }
         }
@@ -396,12 +772,22 @@ public class MAC {
     public void printSolution() {
         System.out.println("Solution: ");
 
-        for (int i = 0; i < assignment.length; i++) {
-            System.out.println("Variable " + i + " = " + assignment[i]);
+        for (int i = 0; i < solution.length; i++) {
+            System.out.println("Variable " + i + " = " + solution[i]);
         }
 
         System.out.println("Nodes visited: " + nodesVisited);
         System.out.println("Arc revisions: " + arcRevisions);
+        System.out.println("Constraint checks: " + constraintChecks);
+
+        if (restarts != RestartSchedule.NONE) {
+            System.out.println("Restarts: " + noRestarts + " (" + nogoods.size() + " nogoods)");
+        }
+
+        if (symmetries != null) {
+            System.out.println("Values pruned by symmetry breaking: " + symmetries.getPruned());
+        }
+
         System.out.println("Time taken: " + timeTaken + "ms");
     }
 }
\ No newline at end of file
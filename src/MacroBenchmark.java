@@ -0,0 +1,363 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/*
+ * This class runs every solver configuration on every instance of a directory without any prompt, and records the nodes, arc
+ * revisions, constraint checks, wall time and peak heap of each run.
+ * Each pair is run a few times to warm up the JIT and then timed over repeated runs, the median time being kept. A run that
+ * exceeds the timeout is cancelled and recorded as TIMEOUT, and the pair is not run again.
+ * The results can be written as CSV (which is also the baseline format) and JSON, and compared with a baseline: the runner exits
+ * with status 1 if the nodes or the time of a pair grew beyond the thresholds, or a pair that finished in the baseline timed out.
+ */
+
+public class MacroBenchmark {
+    //the configurations that can be benchmarked, by name
+    private static final Map<String, Function<BinaryCSP, SearchAlgorithm>> CONFIGURATIONS = new LinkedHashMap<>();
+
+    static {
+        CONFIGURATIONS.put("fc", csp -> new FC(csp));
+        CONFIGURATIONS.put("fc_wdeg", csp -> new FC(csp, VariableHeuristic.Type.DOM_WDEG));
+        CONFIGURATIONS.put("mac", csp -> new MAC(csp));
+        CONFIGURATIONS.put("mac_ac3", csp -> new MAC(csp, MAC.Propagator.AC3));
+        CONFIGURATIONS.put("mac_ac3rm", csp -> new MAC(csp, MAC.Propagator.AC3_RM));
+        CONFIGURATIONS.put("mac_ac2001", csp -> new MAC(csp, MAC.Propagator.AC2001));
+        CONFIGURATIONS.put("mac_wdeg", csp -> new MAC(csp, MAC.Propagator.AC3_BIT, false, VariableHeuristic.Type.DOM_WDEG));
+    }
+
+    private static final String CSV_HEADER = "instance,config,status,nodes,revisions,checks,time_ms,peak_heap_mb";
+
+    private String directory = "instances";   //directory of the instances
+    private List<String> configurations = Arrays.asList("fc", "mac", "mac_wdeg");   //configurations run on each instance
+    private int warmup = 1;   //untimed runs of each pair
+    private int runs = 3;   //timed runs of each pair
+    private long timeout = 60;   //seconds a run may take before it is cancelled
+    private String csvFile;   //CSV output, or null
+    private String jsonFile;   //JSON output, or null
+    private String baselineFile;   //CSV results compared with, or null
+    private double nodeThreshold = 0.0;   //relative growth of the nodes allowed over the baseline
+    private double timeThreshold = 0.25;   //relative growth of the time allowed over the baseline
+    private double minTime = 20;   //time differences below this many ms are noise and never regressions
+    private ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "benchmark-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //the measurements of one configuration on one instance
+    private static class Result {
+        String instance;
+        String configuration;
+        String status;   //SAT, UNSAT or TIMEOUT
+        long nodes;
+        long revisions;
+        long checks;
+        double timeMs;   //median wall time of the timed runs
+        double peakHeapMb;   //largest peak heap over the timed runs
+    }
+
+    public static void main(String[] args) {
+        MacroBenchmark benchmark = new MacroBenchmark();
+
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: java MacroBenchmark [--instances dir] [--configs fc,mac,...|all] [--warmup n] [--runs n]"
+                    + " [--timeout seconds] [--csv file] [--json file] [--baseline file.csv] [--node-threshold fraction]"
+                    + " [--time-threshold fraction] [--min-time ms]");
+            System.out.println("Configurations: " + String.join(", ", CONFIGURATIONS.keySet()));
+            System.exit(2);
+        }
+
+        try {
+            List<Result> results = benchmark.run();
+            benchmark.write(results);
+            System.exit(benchmark.compare(results) ? 0 : 1);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value after " + args[i]);
+            }
+
+            String value = args[i + 1];
+
+            try {
+                switch (args[i]) {
+                    case "--instances":
+                        directory = value;
+                        break;
+                    case "--configs":
+                        configurations = value.equals("all") ? new ArrayList<>(CONFIGURATIONS.keySet()) : Arrays.asList(value.split(","));
+
+                        for (String configuration : configurations) {
+                            if (!CONFIGURATIONS.containsKey(configuration)) {
+                                throw new IllegalArgumentException("Unknown configuration: " + configuration);
+                            }
+                        }
+
+                        break;
+                    case "--warmup":
+                        warmup = Integer.parseInt(value);
+                        break;
+                    case "--runs":
+                        runs = Math.max(1, Integer.parseInt(value));
+                        break;
+                    case "--timeout":
+                        timeout = Long.parseLong(value);
+                        break;
+                    case "--csv":
+                        csvFile = value;
+                        break;
+                    case "--json":
+                        jsonFile = value;
+                        break;
+                    case "--baseline":
+                        baselineFile = value;
+                        break;
+                    case "--node-threshold":
+                        nodeThreshold = Double.parseDouble(value);
+                        break;
+                    case "--time-threshold":
+                        timeThreshold = Double.parseDouble(value);
+                        break;
+                    case "--min-time":
+                        minTime = Double.parseDouble(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected a number after " + args[i] + ": " + value);
+            }
+        }
+    }
+
+    //runs every configuration on every instance, printing each result as it comes
+    private List<Result> run() throws IOException {
+        File[] files = new File(directory).listFiles((d, name) -> name.endsWith(".csp") || name.endsWith(".cspb"));
+
+        if (files == null) {
+            throw new IOException("Cannot list the instances in " + directory);
+        }
+
+        Arrays.sort(files);
+        BinaryCSPReader reader = new BinaryCSPReader();
+        List<Result> results = new ArrayList<>();
+        System.out.println(String.format(Locale.ROOT, "%-22s %-11s %-8s %12s %12s %14s %10s %8s", "instance", "config", "status", "nodes",
+                "revisions", "checks", "ms", "heap MB"));
+
+        for (File file : files) {
+            BinaryCSP csp;
+
+            try {
+                csp = reader.read(file.getPath());
+            } catch (IOException e) {
+                throw new IOException(file.getPath() + ": " + e.getMessage(), e);
+            }
+
+            for (String configuration : configurations) {
+                Result result = measure(file.getName(), configuration, csp);
+                results.add(result);
+                System.out.println(String.format(Locale.ROOT, "%-22s %-11s %-8s %12d %12d %14d %10.1f %8.1f", result.instance,
+                        result.configuration, result.status, result.nodes, result.revisions, result.checks, result.timeMs,
+                        result.peakHeapMb));
+            }
+        }
+
+        return results;
+    }
+
+    //runs one configuration on one instance, warm-up runs first
+    private Result measure(String instance, String configuration, BinaryCSP csp) {
+        Result result = new Result();
+        result.instance = instance;
+        result.configuration = configuration;
+        double[] times = new double[runs];
+        int timed = 0;
+
+        for (int run = -warmup; run < runs; run++) {
+            SearchAlgorithm solver = CONFIGURATIONS.get(configuration).apply(csp);
+            List<MemoryPoolMXBean> pools = heapPools();
+            System.gc();
+
+            for (MemoryPoolMXBean pool : pools) {
+                pool.resetPeakUsage();
+            }
+
+            long startTime = System.nanoTime();
+            Boolean found = solveWithin(solver);
+            double timeMs = (System.nanoTime() - startTime) / 1e6;
+            long peak = 0;
+
+            for (MemoryPoolMXBean pool : pools) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+
+            result.status = (found == null) ? "TIMEOUT" : found ? "SAT" : "UNSAT";
+            result.nodes = solver.getNodesVisited();
+            result.revisions = solver.getArcRevisions();
+            result.checks = solver.getConstraintChecks();
+
+            if (found == null) {   //a pair that timed out is not run again, its time is the timeout
+                result.timeMs = timeMs;
+                result.peakHeapMb = peak / (1024.0 * 1024.0);
+                return result;
+            }
+
+            if (run >= 0) {
+                times[timed++] = timeMs;
+                result.peakHeapMb = Math.max(result.peakHeapMb, peak / (1024.0 * 1024.0));
+            }
+        }
+
+        Arrays.sort(times);
+        result.timeMs = times[runs / 2];
+        return result;
+    }
+
+    //runs the search on the benchmark thread, returns null if it had to be cancelled at the timeout
+    private Boolean solveWithin(SearchAlgorithm solver) {
+        Future<Boolean> search = executor.submit(solver::solve);
+
+        try {
+            return search.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            solver.cancel();
+
+            try {
+                search.get();   //the search stops at its next node
+            } catch (InterruptedException | ExecutionException ignored) {
+            }
+
+            return null;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Search failed", e);
+        }
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+
+        return pools;
+    }
+
+    private void write(List<Result> results) throws IOException {
+        if (csvFile != null) {
+            try (PrintWriter out = new PrintWriter(csvFile)) {
+                out.println(CSV_HEADER);
+
+                for (Result r : results) {
+                    out.println(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%.3f,%.2f", r.instance, r.configuration, r.status,
+                            r.nodes, r.revisions, r.checks, r.timeMs, r.peakHeapMb));
+                }
+            }
+        }
+
+        if (jsonFile != null) {
+            try (PrintWriter out = new PrintWriter(jsonFile)) {
+                out.println("[");
+
+                for (int i = 0; i < results.size(); i++) {
+                    Result r = results.get(i);
+                    out.println(String.format(Locale.ROOT, "  {\"instance\": %s, \"config\": %s, \"status\": %s, \"nodes\": %d,"
+                            + " \"revisions\": %d, \"checks\": %d, \"time_ms\": %.3f, \"peak_heap_mb\": %.2f}%s", Json.quote(r.instance),
+                            Json.quote(r.configuration), Json.quote(r.status), r.nodes, r.revisions, r.checks, r.timeMs, r.peakHeapMb,
+                            (i < results.size() - 1) ? "," : ""));
+                }
+
+                out.println("]");
+            }
+        }
+    }
+
+    //compares the results with the baseline, printing every regression, returns false if there is one
+    private boolean compare(List<Result> results) throws IOException {
+        if (baselineFile == null) {
+            return true;
+        }
+
+        Map<String, String[]> baseline = new HashMap<>();
+        List<String> columns;
+
+        try (BufferedReader in = new BufferedReader(new FileReader(baselineFile))) {
+            String header = in.readLine();
+
+            if (header == null) {
+                throw new IOException("Empty baseline " + baselineFile);
+            }
+
+            columns = Arrays.asList(header.split(","));
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(",");
+                baseline.put(fields[columns.indexOf("instance")] + "," + fields[columns.indexOf("config")], fields);
+            }
+        }
+
+        int regressions = 0;
+
+        for (Result r : results) {
+            String[] base = baseline.get(r.instance + "," + r.configuration);
+
+            if (base == null) {
+                continue;
+            }
+
+            String baseStatus = base[columns.indexOf("status")];
+            long baseNodes = Long.parseLong(base[columns.indexOf("nodes")]);
+            double baseTime = Double.parseDouble(base[columns.indexOf("time_ms")]);
+            String reason = null;
+
+            if (r.status.equals("TIMEOUT") && !baseStatus.equals("TIMEOUT")) {
+                reason = "timed out, finished in the baseline";
+            } else if (!r.status.equals("TIMEOUT") && !baseStatus.equals("TIMEOUT") && !r.status.equals(baseStatus)) {
+                reason = r.status + ", " + baseStatus + " in the baseline";
+            } else if (r.nodes > baseNodes * (1 + nodeThreshold) && !r.status.equals("TIMEOUT")) {
+                reason = "nodes " + baseNodes + " -> " + r.nodes;
+            } else if (r.timeMs > baseTime * (1 + timeThreshold) && r.timeMs - baseTime >= minTime) {
+                reason = String.format(Locale.ROOT, "time %.1fms -> %.1fms", baseTime, r.timeMs);
+            }
+
+            if (reason != null) {
+                regressions++;
+                System.out.println("REGRESSION " + r.instance + " " + r.configuration + ": " + reason);
+            }
+        }
+
+        System.out.println(regressions + " regressions against " + baselineFile);
+        return regressions == 0;
+    }
+}
@@ -0,0 +1,242 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/*
+ * This class keeps the branch of decisions the search is on, records the nogoods learnt from it when the search restarts, and
+ * propagates them.
+ * On a branch of 2-way decisions, each negative decision x != a was taken after the whole subtree under x = a was refuted, so the
+ * positive decisions before it together with x = a form a nogood (the reduced nld-nogoods of the branch).
+ * A nogood is a set of literals var = val that cannot all hold. Two of its literals are watched: when a decision makes a watched
+ * literal true another literal that is not true takes its place, and only once none is left is the value of the last literal
+ * pruned. Watches are never restored on backtracking, as backtracking can only make literals stop being true.
+ * The watches are only checked on decisions: a literal made true by propagation, when a domain is pruned down to a singleton,
+ * moves no watch until its variable is decided. That only delays pruning, as the search decides every variable, singleton or
+ * not, before it reports a solution, so no solution can violate a nogood.
+ * A nogood of a single literal removes its value for good.
+ * When the search breaks symmetries, the images of every nogood under the symmetries are recorded too: the subtree a nogood rules
+ * out has been searched, so its images hold no solution that is not symmetric to one already found, and without them the runs
+ * after a restart would find those symmetric solutions again.
+ */
+
+public class NogoodStore {
+    private Domain[] domains;   //current domain of each variable
+    private int[] lowerBounds;   //lower bound of each variable, to index the watch lists
+    private List<int[][]>[][] watches;   //watches[x][a - lb(x)]: the nogoods watching x = a, each as {vars, vals}
+    private List<int[][]> pending = new ArrayList<>();   //nogoods recorded before the restart, added once back at the root
+    private int[] branchVars = new int[16];   //variable of each decision on the current branch
+    private int[] branchVals = new int[16];   //value of each decision
+    private boolean[] branchSigns = new boolean[16];   //true for var = val, false for var != val
+    private int depth = 0;   //number of decisions on the current branch
+    private int noNogoods = 0;   //nogoods stored
+    private List<Symmetry> symmetries = null;   //symmetries broken by the search, whose images of the nogoods are recorded too
+
+    @SuppressWarnings({"unchecked", "rawtypes"})   //arrays of a generic type can only be created raw
+    public NogoodStore(BinaryCSP csp, List<Variable> variables) {
+        int n = variables.size();
+        domains = new Domain[n];
+        lowerBounds = new int[n];
+        watches = new List[n][];
+
+        for (int i = 0; i < n; i++) {
+            domains[i] = variables.get(i).getDomain();
+            lowerBounds[i] = csp.getLB(i);
+            watches[i] = new List[csp.getUB(i) - csp.getLB(i) + 1];
+        }
+    }
+
+    //records the images of the nogoods under the symmetries of the group from now on, or not if it is null
+    public void setSymmetries(List<Symmetry> group) {
+        symmetries = group;
+    }
+
+    //extends the branch with the decision var = val
+    public void decide(int var, int val) {
+        if (depth == branchVars.length) {
+            branchVars = Arrays.copyOf(branchVars, depth * 2);
+            branchVals = Arrays.copyOf(branchVals, depth * 2);
+            branchSigns = Arrays.copyOf(branchSigns, depth * 2);
+        }
+
+        branchVars[depth] = var;
+        branchVals[depth] = val;
+        branchSigns[depth++] = true;
+    }
+
+    //turns the last decision var = val into var != val, once the subtree under it is refuted
+    public void refute() {
+        branchSigns[depth - 1] = false;
+    }
+
+    //removes the last decision from the branch
+    public void retract() {
+        depth--;
+    }
+
+    //records the nogoods of the current branch, to be added by addPending once the search is back at the root
+    public void recordBranch() {
+        int[] positiveVars = new int[depth];
+        int[] positiveVals = new int[depth];
+        int noPositive = 0;
+
+        for (int i = 0; i < depth; i++) {
+            if (!branchSigns[i]) {
+                int[] nogoodVars = Arrays.copyOf(positiveVars, noPositive + 1);
+                int[] nogoodVals = Arrays.copyOf(positiveVals, noPositive + 1);
+                nogoodVars[noPositive] = branchVars[i];
+                nogoodVals[noPositive] = branchVals[i];
+                pending.add(new int[][] {nogoodVars, nogoodVals});
+                addImages(nogoodVars, nogoodVals);
+            } else {
+                positiveVars[noPositive] = branchVars[i];
+                positiveVals[noPositive++] = branchVals[i];
+            }
+        }
+    }
+
+    //records the image of the nogood under every symmetry, leaving out the images that cannot be violated
+    private void addImages(int[] vars, int[] vals) {
+        if (symmetries == null) {
+            return;
+        }
+
+        for (Symmetry symmetry : symmetries) {
+            int[] imageVars = new int[vars.length];
+            int[] imageVals = new int[vars.length];
+            int size = 0;
+            boolean satisfied = false;   //whether two literals of the image give one variable different values
+
+            for (int k = 0; k < vars.length && !satisfied; k++) {
+                int var = symmetry.imageVar(vars[k], vals[k]);
+                int val = symmetry.imageVal(vars[k], vals[k]);
+                boolean duplicate = false;
+
+                for (int j = 0; j < size; j++) {
+                    if (imageVars[j] == var) {
+                        duplicate = imageVals[j] == val;
+                        satisfied = !duplicate;
+                        break;
+                    }
+                }
+
+                if (!duplicate && !satisfied) {
+                    imageVars[size] = var;
+                    imageVals[size++] = val;
+                }
+            }
+
+            if (!satisfied) {
+                pending.add(new int[][] {Arrays.copyOf(imageVars, size), Arrays.copyOf(imageVals, size)});
+            }
+        }
+    }
+
+    //stores the recorded nogoods, which must be done at the root, returns false if a domain is wiped out
+    public boolean addPending(Trail trail, IntConsumer onPrune) {
+        boolean consistent = true;
+
+        for (int[][] nogood : pending) {
+            int[] vars = nogood[0];
+            int[] vals = nogood[1];
+
+            if (vars.length == 1) {
+                if (trail.prune(domains[vars[0]], vals[0])) {
+                    onPrune.accept(vars[0]);
+                    consistent &= !domains[vars[0]].isEmpty();
+                }
+            } else {
+                watch(nogood, 0);
+                watch(nogood, 1);
+                noNogoods++;
+            }
+        }
+
+        pending.clear();
+        return consistent;
+    }
+
+    /*
+     * Propagates the decision var = val through the nogoods watching it, passing every variable whose domain is pruned to onPrune.
+     * Returns false if a nogood has all its literals true or a domain is wiped out.
+     */
+    public boolean assigned(int var, int val, Trail trail, IntConsumer onPrune) {
+        List<int[][]> list = watches[var][val - lowerBounds[var]];
+
+        if (list == null) {
+            return true;
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            int[][] nogood = list.get(i);
+            int[] vars = nogood[0];
+            int[] vals = nogood[1];
+
+            if (vars[0] != var || vals[0] != val) {   //keeps the literal just made true in position 0
+                swap(nogood, 0, 1);
+            }
+
+            int replacement = -1;
+
+            for (int k = 2; k < vars.length && replacement == -1; k++) {
+                if (!isTrue(vars[k], vals[k])) {
+                    replacement = k;
+                }
+            }
+
+            if (replacement != -1) {   //moves the watch to a literal that is not true
+                swap(nogood, 0, replacement);
+                watch(nogood, 0);
+                list.set(i, list.get(list.size() - 1));
+                list.remove(list.size() - 1);
+                i--;
+                continue;
+            }
+
+            //every other literal is true, so the last one must be false
+            Domain domain = domains[vars[1]];
+
+            if (isTrue(vars[1], vals[1])) {
+                return false;
+            }
+
+            if (trail.prune(domain, vals[1])) {
+                onPrune.accept(vars[1]);
+
+                if (domain.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public int size() {
+        return noNogoods;
+    }
+
+    //a literal is true once the domain of its variable is reduced to its value
+    private boolean isTrue(int var, int val) {
+        return domains[var].size() == 1 && domains[var].contains(val);
+    }
+
+    private void watch(int[][] nogood, int k) {
+        int var = nogood[0][k];
+        int index = nogood[1][k] - lowerBounds[var];
+
+        if (watches[var][index] == null) {
+            watches[var][index] = new ArrayList<>();
+        }
+
+        watches[var][index].add(nogood);
+    }
+
+    private static void swap(int[][] nogood, int i, int j) {
+        for (int[] literals : nogood) {
+            int temp = literals[i];
+            literals[i] = literals[j];
+            literals[j] = temp;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+ * This class searches a CSP in parallel by splitting the search tree into subproblems scheduled on a work-stealing ForkJoinPool.
+ * A subproblem is an assignment prefix: near the root the smallest domain is split into one subproblem per value, until there
+ * are enough subproblems to keep every worker busy, and each subproblem is then searched sequentially.
+ * Every subproblem builds its own solver, so workers share nothing but the read-only CSP.
+ * In all-solutions mode each subproblem counts its own solutions and the counts are summed as the tasks are joined.
+ */
+
+public class ParallelSearch {
+    private static final int TASKS_PER_WORKER = 16;   //subproblems generated per worker, so stealing can even out the load
+
+    private final BinaryCSP csp;   //csp instance
+    private final Function<BinaryCSP, SearchAlgorithm> factory;   //builds the sequential solver used on each subproblem
+    private final int parallelism;   //number of workers
+    private final Queue<SearchAlgorithm> running = new ConcurrentLinkedQueue<>();   //solvers currently searching, cancelled once a solution is found
+    private final AtomicLong nodesVisited = new AtomicLong();   //nodes visited over all subproblems
+    private final AtomicLong subproblems = new AtomicLong();   //subproblems searched sequentially
+    private volatile int[] solution;   //first solution found
+    private boolean allSolutions = false;   //whether every solution is searched for
+    private SolutionListener listener;   //receives every solution in all-solutions mode, may be null
+    private long solutionsFound = 0;   //number of solutions in all-solutions mode
+    private long timeTaken = 0;
+
+    public ParallelSearch(BinaryCSP csp, Function<BinaryCSP, SearchAlgorithm> factory, int parallelism) {
+        this.csp = csp;
+        this.factory = factory;
+        this.parallelism = parallelism;
+    }
+
+    //searches for a solution, returns true if one was found
+    public boolean solve() {
+        run();
+        return solution != null;
+    }
+
+    //searches every subproblem to the end, passing each solution to the listener (which may be null and must be thread-safe)
+    public long solveAll(SolutionListener listener) {
+        this.allSolutions = true;
+        this.listener = listener;
+        run();
+        return solutionsFound;
+    }
+
+    private void run() {
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            solutionsFound = pool.invoke(new Subproblem(new int[0], new int[0], 1));
+        } finally {
+            pool.shutdown();
+        }
+
+        timeTaken = (System.nanoTime() - startTime) / 1_000_000;
+    }
+
+    //stops every running subproblem after the first solution
+    private void found(int[] result) {
+        synchronized (this) {
+            if (solution != null) {
+                return;
+            }
+
+            solution = result;
+        }
+
+        for (SearchAlgorithm solver : running) {
+            solver.cancel();
+        }
+    }
+
+    public int[] getSolution() {
+        return solution;
+    }
+
+    public long getSolutionsFound() {
+        return solutionsFound;
+    }
+
+    public long getNodesVisited() {
+        return nodesVisited.get();
+    }
+
+    public long getSubproblems() {
+        return subproblems.get();
+    }
+
+    public long getTimeTaken() {
+        return timeTaken;
+    }
+
+    /*
+     * A subproblem fixing vars[i] = vals[i]. The width is the number of subproblems at its depth, used to decide when to stop splitting.
+     */
+    private class Subproblem extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] vars;
+        private final int[] vals;
+        private final long width;
+
+        Subproblem(int[] vars, int[] vals, long width) {
+            this.vars = vars;
+            this.vals = vals;
+            this.width = width;
+        }
+
+        //returns the number of solutions of the subproblem in all-solutions mode
+        @Override
+        protected Long compute() {
+            if (solution != null) {
+                return 0L;
+            }
+
+            SearchAlgorithm solver = factory.apply(csp);
+
+            for (int i = 0; i < vars.length; i++) {
+                if (!solver.assign(vars[i], vals[i])) {
+                    return 0L;   //the prefix is inconsistent
+                }
+            }
+
+            int splitVar = selectSplitVar(solver);
+
+            if (splitVar != -1 && width < (long) parallelism * TASKS_PER_WORKER) {
+                return split(solver, splitVar);
+            }
+
+            return search(solver);
+        }
+
+        //forks one subproblem per value of the split variable and sums their solutions
+        private long split(SearchAlgorithm solver, int splitVar) {
+            Domain domain = solver.getDomain(splitVar);
+            List<Subproblem> children = new ArrayList<>(domain.size());
+            int[] childVars = Arrays.copyOf(vars, vars.length + 1);
+            childVars[vars.length] = splitVar;
+
+            for (int val = domain.min(); val != Domain.NONE; val = domain.next(val)) {
+                int[] childVals = Arrays.copyOf(vals, vals.length + 1);
+                childVals[vals.length] = val;
+                children.add(new Subproblem(childVars, childVals, width * domain.size()));
+            }
+
+            long count = 0;
+
+            for (Subproblem child : invokeAll(children)) {
+                count += child.join();
+            }
+
+            return count;
+        }
+
+        //searches the subproblem sequentially
+        private long search(SearchAlgorithm solver) {
+            long count = 0;
+
+            if (allSolutions) {
+                count = solver.solveAll(listener);
+            } else {
+                running.add(solver);
+
+                if (solution != null) {
+                    solver.cancel();
+                }
+
+                boolean found = solver.solve();
+                running.remove(solver);
+
+                if (found) {
+                    found(solver.getSolution());
+                }
+            }
+
+            nodesVisited.addAndGet(solver.getNodesVisited());
+            subproblems.incrementAndGet();
+            return count;
+        }
+
+        //selects the variable with the smallest domain that still has more than one value, or -1 if there is none
+        private int selectSplitVar(SearchAlgorithm solver) {
+            int splitVar = -1;
+
+            for (int i = 0; i < csp.getNoVariables(); i++) {
+                int size = solver.getDomain(i).size();
+
+                if (size > 1 && (splitVar == -1 || size < solver.getDomain(splitVar).size())) {
+                    splitVar = i;
+                }
+            }
+
+            return splitVar;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * This class runs several search configurations on the same CSP in parallel threads.
+ * Each configuration has its own domains, trail and queue, and the CSP itself is only read, so nothing is shared while searching.
+ * The first configuration to finish decides the result (a solution, or a proof that there is none) and the others are cancelled.
+ */
+
+public class Portfolio {
+    private List<String> names = new ArrayList<>();   //name of each configuration
+    private List<SearchAlgorithm> solvers = new ArrayList<>();   //the configurations
+    private SearchAlgorithm winner;   //the configuration that finished first
+    private String winnerName;
+    private long timeTaken = 0;   //wall time until the first configuration finished
+
+    //adds a configuration to the portfolio
+    public void add(String name, SearchAlgorithm solver) {
+        names.add(name);
+        solvers.add(solver);
+    }
+
+    /*
+     * The default portfolio, mixing forward checking with MAC over different support checks, queues, variable orderings and value
+     * orderings. Every configuration starts from the orderings, restarts and seed given, and gets a seed of its own, so the
+     * random value orderings and the random tie-breaking of restarts do not repeat each other across configurations.
+     */
+    public static Portfolio defaultPortfolio(BinaryCSP csp, VariableHeuristic.Type ordering, ValueHeuristic.Type valueOrdering,
+                                             RestartSchedule restarts, long seed) {
+        Portfolio portfolio = new Portfolio();
+        FC fc = new FC(csp, ordering, valueOrdering, seed);
+        fc.setRestarts(restarts);
+        portfolio.add("FC", fc);
+        portfolio.add("MAC (AC3bit)", newMAC(csp, MAC.Propagator.AC3_BIT, false, ordering, valueOrdering, restarts, seed + 1));
+        portfolio.add("MAC (AC3rm)", newMAC(csp, MAC.Propagator.AC3_RM, false, ordering, valueOrdering, restarts, seed + 2));
+        portfolio.add("MAC (AC3bit, variable queue)", newMAC(csp, MAC.Propagator.AC3_BIT, true, ordering, valueOrdering, restarts,
+                seed + 3));
+        portfolio.add("MAC (AC3bit, dom/wdeg)", newMAC(csp, MAC.Propagator.AC3_BIT, false, VariableHeuristic.Type.DOM_WDEG,
+                valueOrdering, restarts, seed + 4));
+
+        if (valueOrdering != ValueHeuristic.Type.MAX_SUPPORTS) {
+            portfolio.add("MAC (AC3bit, max supports)", newMAC(csp, MAC.Propagator.AC3_BIT, false, ordering,
+                    ValueHeuristic.Type.MAX_SUPPORTS, restarts, seed + 5));
+        }
+
+        for (long k = 6; k <= 7; k++) {
+            portfolio.add("MAC (AC3bit, random values, seed " + (seed + k) + ")", newMAC(csp, MAC.Propagator.AC3_BIT, false, ordering,
+                    ValueHeuristic.Type.RANDOM, restarts, seed + k));
+        }
+
+        return portfolio;
+    }
+
+    private static MAC newMAC(BinaryCSP csp, MAC.Propagator propagator, boolean variableQueue, VariableHeuristic.Type ordering,
+                              ValueHeuristic.Type valueOrdering, RestartSchedule restarts, long seed) {
+        MAC solver = new MAC(csp, propagator, variableQueue, ordering, valueOrdering, seed);
+        solver.setRestarts(restarts);
+        return solver;
+    }
+
+    //runs every configuration and returns true if a solution was found
+    public boolean solve() throws InterruptedException {
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(solvers.size());
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+
+        for (int i = 0; i < solvers.size(); i++) {
+            final int index = i;
+            completion.submit(() -> {
+                solvers.get(index).solve();
+                return index;
+            });
+        }
+
+        try {
+            int first = completion.take().get();
+            timeTaken = (System.nanoTime() - startTime) / 1_000_000;
+            winner = solvers.get(first);
+            winnerName = names.get(first);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        } finally {
+            for (SearchAlgorithm solver : solvers) {
+                solver.cancel();
+            }
+
+            executor.shutdown();
+        }
+
+        return winner.getSolution() != null;
+    }
+
+    public SearchAlgorithm getWinner() {
+        return winner;
+    }
+
+    public String getWinnerName() {
+        return winnerName;
+    }
+
+    public long getTimeTaken() {
+        return timeTaken;
+    }
+}
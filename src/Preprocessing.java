@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * This class runs a pipeline of preprocessing stages before the search and builds the reduced CSP they leave.
+ * The stages share one MAC solver as their propagation engine, so each starts from the domains the previous one left.
+ * The time spent and the values removed are recorded per stage, and the reduced CSP starts from the final domains,
+ * so either solver can search it.
+ * A run can be cancelled from another thread: it stops at the next singleton or path test, and the reduced CSP keeps what
+ * the stages removed until then, which is all inconsistent.
+ */
+
+public class Preprocessing {
+    private List<Preprocessor.Type> stages = new ArrayList<>();   //stages in the order they run
+    private List<Long> times = new ArrayList<>();   //time spent in each stage that ran
+    private List<Long> removed = new ArrayList<>();   //values removed by each stage that ran
+    private boolean consistent = true;   //false once a stage wipes out a domain
+    private int fixed = 0;   //variables left with a single value
+    private volatile boolean cancelled = false;   //set from another thread to stop the run
+    private volatile MAC engine;   //propagation engine of the run, cancelled with it
+
+    //adds a stage at the end of the pipeline
+    public void add(Preprocessor.Type stage) {
+        stages.add(stage);
+    }
+
+    //a pipeline of the same stages that has not run yet, as a pipeline records the results of its one run
+    public Preprocessing copy() {
+        Preprocessing copy = new Preprocessing();
+        copy.stages.addAll(stages);
+        return copy;
+    }
+
+    public boolean isEmpty() {
+        return stages.isEmpty();
+    }
+
+    //runs every stage and returns the reduced CSP, in which a domain is empty if a stage proved there is no solution
+    public BinaryCSP run(BinaryCSP csp) {
+        MAC engine = new MAC(csp);
+        this.engine = engine;
+
+        if (cancelled) {
+            engine.cancel();
+        }
+
+        long values = countValues(engine, csp);
+
+        for (Preprocessor.Type stage : stages) {
+            if (cancelled) {
+                break;
+            }
+
+            long startTime = System.nanoTime();
+            consistent = Preprocessor.create(stage).apply(engine, csp);
+            times.add((System.nanoTime() - startTime) / 1_000_000);
+            long left = countValues(engine, csp);
+            removed.add(values - left);
+            values = left;
+
+            if (!consistent) {
+                break;
+            }
+        }
+
+        Domain[] domains = new Domain[csp.getNoVariables()];
+
+        for (int i = 0; i < domains.length; i++) {
+            domains[i] = engine.getDomain(i);
+
+            if (domains[i].size() == 1) {
+                fixed++;
+            }
+        }
+
+        return new BinaryCSP(csp, domains);
+    }
+
+    private static long countValues(MAC engine, BinaryCSP csp) {
+        long values = 0;
+
+        for (int i = 0; i < csp.getNoVariables(); i++) {
+            values += engine.getDomain(i).size();
+        }
+
+        return values;
+    }
+
+    //asks a running pipeline to stop, or one about to run to skip its stages
+    public void cancel() {
+        cancelled = true;
+        MAC running = engine;
+
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    //prints the time and values removed per stage
+    public void printReport(int noVariables) {
+        for (int i = 0; i < times.size(); i++) {
+            System.out.println(stages.get(i) + ": " + removed.get(i) + " values removed, " + times.get(i) + "ms");
+        }
+
+        if (!consistent) {
+            System.out.println("Preprocessing wiped out a domain: unsolvable csp");
+        } else {
+            System.out.println("Variables fixed by preprocessing: " + fixed + "/" + noVariables);
+        }
+    }
+}
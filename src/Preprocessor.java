@@ -0,0 +1,40 @@
+/*
+ * This interface is implemented by the stages of the preprocessing pipeline run before the search.
+ * A stage removes values from the domains of a MAC solver at the root, so everything it removes is propagated by arc consistency
+ * and kept for good, and the domains left after the last stage become the initial domains of the reduced CSP.
+ */
+
+public interface Preprocessor {
+    enum Type {
+        AC("AC"),   //arc consistency
+        SAC1("SAC-1"),   //singleton arc consistency, sweeping over every value until a sweep removes nothing
+        SAC_OPT("SAC-Opt"),   //singleton arc consistency, only testing again the values whose test saw a value that has since been removed
+        RPC("RPC");   //restricted path consistency on top of arc consistency
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        public String toString() {
+            return label;
+        }
+    }
+
+    static Preprocessor create(Type type) {
+        switch (type) {
+            case SAC1:
+                return new SingletonArcConsistency(false);
+            case SAC_OPT:
+                return new SingletonArcConsistency(true);
+            case RPC:
+                return new RestrictedPathConsistency();
+            default:
+                return (engine, csp) -> engine.propagate();
+        }
+    }
+
+    //filters the domains of the engine, returns false if a domain is wiped out
+    boolean apply(MAC engine, BinaryCSP csp);
+}
@@ -0,0 +1,23 @@
+import java.util.Random;
+
+/*
+ * This class chooses a value at a random position of the domain, from a seeded generator so that a run can be repeated.
+ */
+
+public class RandomValueHeuristic implements ValueHeuristic {
+    private Random random;
+
+    public RandomValueHeuristic(long seed) {
+        random = new Random(seed);
+    }
+
+    public int select(int var, Domain domain) {
+        int val = domain.min();
+
+        for (int skip = random.nextInt(domain.size()); skip > 0; skip--) {
+            val = domain.next(val);
+        }
+
+        return val;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * This enum gives the node cutoff of each run of a search with restarts.
+ * A run that visits as many nodes as its cutoff is abandoned and the search starts again from the root, keeping what it learnt
+ * (nogoods and heuristic weights), which cuts off the heavy tail of runs that got stuck below a bad early decision.
+ */
+
+public enum RestartSchedule {
+    NONE,   //a single run without a cutoff
+    LUBY,   //UNIT times the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ...
+    GEOMETRIC;   //UNIT nodes, growing by FACTOR after every run
+
+    public static final long UNIT = 100;   //nodes in the first run
+    public static final double FACTOR = 1.5;   //growth of the geometric cutoff
+
+    //the node cutoff of the given run, counted from 0
+    public long cutoff(int run) {
+        switch (this) {
+            case LUBY:
+                return UNIT * luby(run + 1);
+            case GEOMETRIC:
+                return (long) (UNIT * Math.pow(FACTOR, run));
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    //the i-th term of the Luby sequence, counted from 1
+    private static long luby(int i) {
+        int k = 1;
+
+        while ((1L << k) - 1 < i) {
+            k++;
+        }
+
+        if ((1L << k) - 1 == i) {
+            return 1L << (k - 1);
+        }
+
+        return luby(i - (int) (1L << (k - 1)) + 1);
+    }
+}
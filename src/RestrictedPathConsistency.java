@@ -0,0 +1,87 @@
+/*
+ * This class enforces restricted path consistency on top of arc consistency.
+ * When a value a of x has a single support b in the domain of a neighbour y, the pair (a, b) must also extend to every variable z
+ * constrained with both x and y, with a value of z compatible with both, or a is removed. Values with several supports on every
+ * constraint are left alone, which keeps the cost close to arc consistency while removing much of what path consistency would.
+ */
+
+public class RestrictedPathConsistency implements Preprocessor {
+    public boolean apply(MAC engine, BinaryCSP csp) {
+        if (!engine.propagate()) {
+            return false;
+        }
+
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int x = 0; x < csp.getNoVariables(); x++) {
+                Domain domain = engine.getDomain(x);
+
+                for (int a = domain.min(); a != Domain.NONE; a = domain.next(a)) {
+                    if (engine.isCancelled()) {
+                        return true;   //every value removed so far is inconsistent, so stopping here is sound
+                    }
+
+                    if (!isRestrictedPathConsistent(engine, csp, x, a)) {
+                        changed = true;
+
+                        if (!engine.prune(x, a)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    //checks the pair formed by a and its only support on each constraint that has one
+    private static boolean isRestrictedPathConsistent(MAC engine, BinaryCSP csp, int x, int a) {
+        int[] neighbours = csp.getNeighbours(x);
+        BinaryConstraint[] constraints = csp.getNeighbourConstraints(x);
+
+        for (int k = 0; k < neighbours.length; k++) {
+            int y = neighbours[k];
+            Domain yDomain = engine.getDomain(y);
+
+            if (constraints[k].countSupports(x, a, yDomain) != 1) {
+                continue;
+            }
+
+            int b = yDomain.min();
+
+            while (!allows(constraints[k], x, a, b)) {
+                b = yDomain.next(b);
+            }
+
+            for (int z : neighbours) {
+                BinaryConstraint yz = csp.getConstraint(y, z);
+
+                if (z != y && yz != null && !hasCommonSupport(engine.getDomain(z), csp.getConstraint(x, z), x, a, yz, y, b)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    //whether some value of z is compatible with both a of x and b of y
+    private static boolean hasCommonSupport(Domain zDomain, BinaryConstraint xz, int x, int a, BinaryConstraint yz, int y, int b) {
+        for (int c = zDomain.min(); c != Domain.NONE; c = zDomain.next(c)) {
+            if (allows(xz, x, a, c) && allows(yz, y, b, c)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //whether the constraint allows val of var together with otherVal of its other variable
+    private static boolean allows(BinaryConstraint constraint, int var, int val, int otherVal) {
+        return (constraint.getFirstVar() == var) ? constraint.allows(val, otherVal) : constraint.allows(otherVal, val);
+    }
+}
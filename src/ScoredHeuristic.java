@@ -0,0 +1,170 @@
+import java.util.List;
+import java.util.Random;
+
+/*
+ * This class is the base of the variable ordering heuristics that pick the unassigned variable with the smallest score.
+ * The unassigned variables are kept in a binary heap ordered by score, then by variable, so selecting is a look at the root.
+ * A score is only recomputed when it may have changed: the domains report every removal and restoration, and the subclasses
+ * report the variables whose weights or activities they bump, which marks them dirty. The dirty variables are moved to their
+ * new place in the heap before the next selection, so a node costs a few heap moves instead of a pass over every variable.
+ */
+
+public abstract class ScoredHeuristic implements VariableHeuristic {
+    protected BinaryCSP csp;   //csp instance
+    protected Domain[] domains;   //current domain of each variable
+    private int[] heap;   //the unassigned variables, each no worse than its children
+    private int[] positions;   //positions[x]: index of x in the heap, -1 while x is assigned
+    private double[] keys;   //keys[x]: score of x when it was last placed in the heap
+    private int noUnassigned;   //number of unassigned variables
+    private int[] dirty;   //variables whose score may have changed since they were placed
+    private boolean[] isDirty;   //whether each variable is in dirty
+    private int noDirty;   //number of dirty variables
+    private int[] ties;   //heap positions with the best score, when ties are randomised
+    private Random tieBreaker;   //picks among equal scores when ties are randomised
+
+    public void initialise(BinaryCSP csp, List<Variable> variables) {
+        int n = variables.size();
+        this.csp = csp;
+        domains = new Domain[n];
+        heap = new int[n];
+        positions = new int[n];
+        keys = new double[n];
+        noUnassigned = n;
+        dirty = new int[n];
+        isDirty = new boolean[n];
+        noDirty = 0;
+        ties = new int[n];
+
+        //every key starts equal so the heap holds, and every variable is scored before the first selection
+        for (int i = 0; i < n; i++) {
+            domains[i] = variables.get(i).getDomain();
+            domains[i].setObserver(this::changed, i);
+            heap[i] = i;
+            positions[i] = i;
+            changed(i);
+        }
+    }
+
+    //score of an unassigned variable, the lower the better
+    protected abstract double score(int var);
+
+    public void randomiseTies(long seed) {
+        tieBreaker = new Random(seed);
+    }
+
+    //marks the score of the variable as out of date
+    protected void changed(int var) {
+        if (!isDirty[var]) {
+            isDirty[var] = true;
+            dirty[noDirty++] = var;
+        }
+    }
+
+    //marks every score as out of date
+    protected void changedAll() {
+        for (int var = 0; var < heap.length; var++) {
+            changed(var);
+        }
+    }
+
+    public int select() {
+        for (int i = 0; i < noDirty; i++) {
+            int var = dirty[i];
+            isDirty[var] = false;
+
+            if (positions[var] >= 0) {
+                keys[var] = score(var);
+                siftDown(siftUp(positions[var]));
+            }
+        }
+
+        noDirty = 0;
+
+        if (tieBreaker == null) {
+            return heap[0];
+        }
+
+        //the variables tied with the root form a subtree around it, each of them is picked with the same probability
+        double best = keys[heap[0]];
+        int noTies = 0;
+        ties[noTies++] = 0;
+
+        for (int i = 0; i < noTies; i++) {
+            for (int child = 2 * ties[i] + 1; child <= 2 * ties[i] + 2 && child < noUnassigned; child++) {
+                if (keys[heap[child]] == best) {
+                    ties[noTies++] = child;
+                }
+            }
+        }
+
+        return heap[ties[tieBreaker.nextInt(noTies)]];
+    }
+
+    //takes the variable out of the heap, filling its place with the last one
+    public void assigned(int var) {
+        int i = positions[var];
+        int last = heap[--noUnassigned];
+        positions[var] = -1;
+
+        if (i < noUnassigned) {
+            heap[i] = last;
+            positions[last] = i;
+            siftDown(siftUp(i));
+        }
+    }
+
+    //puts the variable back into the heap with its current score
+    public void unassigned(int var) {
+        heap[noUnassigned] = var;
+        positions[var] = noUnassigned;
+        keys[var] = score(var);
+        siftUp(noUnassigned++);
+    }
+
+    protected boolean isAssigned(int var) {
+        return positions[var] < 0;
+    }
+
+    //whether the variable at heap index i comes before the one at index j
+    private boolean before(int i, int j) {
+        int x = heap[i];
+        int y = heap[j];
+        return keys[x] < keys[y] || (keys[x] == keys[y] && x < y);
+    }
+
+    //moves the variable at index i towards the root while it comes before its parent, returns its new index
+    private int siftUp(int i) {
+        while (i > 0 && before(i, (i - 1) / 2)) {
+            swap(i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+
+        return i;
+    }
+
+    //moves the variable at index i towards the leaves while a child comes before it
+    private void siftDown(int i) {
+        while (2 * i + 1 < noUnassigned) {
+            int child = 2 * i + 1;
+
+            if (child + 1 < noUnassigned && before(child + 1, child)) {
+                child++;
+            }
+
+            if (!before(child, i)) {
+                return;
+            }
+
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int var = heap[i];
+        heap[i] = heap[j];
+        heap[j] = var;
+        positions[heap[i]] = i;
+        positions[var] = j;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * This interface is implemented by the search algorithms (FC and MAC) so they can be run and compared interchangeably.
+ * A search returns instead of exiting when it finishes, and can be cancelled from another thread.
+ */
+
+public interface SearchAlgorithm {
+    //runs the search, returns true if a solution was found and false if there is none or the search was cancelled
+    boolean solve();
+
+    //fixes a variable to a value before the search starts and propagates it, returns false if a domain is wiped out
+    boolean assign(int var, int val);
+
+    //current domain of a variable
+    Domain getDomain(int var);
+
+    //searches the whole tree, passing every solution to the listener (which may be null), and returns the number of solutions
+    long solveAll(SolutionListener listener);
+
+    long getSolutionsFound();
+
+    //sends the events of the search to the listener, or to none if it is null
+    void setSearchListener(SearchListener listener);
+
+    //attributes every arc revision to its constraint and variable in the profiler, or in none if it is null
+    void setProfiler(ConstraintProfiler profiler);
+
+    //stops the search once it has visited the given number of nodes, as if it had been cancelled
+    void setNodeLimit(long limit);
+
+    //asks a running search to stop at the next node
+    void cancel();
+
+    boolean isCancelled();
+
+    //whether the search stopped before the end of its tree, so that finding no solution proves nothing
+    boolean isStopped();
+
+    //the solution found, indexed by variable, or null
+    int[] getSolution();
+
+    int getNodesVisited();
+
+    int getArcRevisions();
+
+    long getConstraintChecks();
+
+    long getTimeTaken();
+
+    void printSolution();
+}
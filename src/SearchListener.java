@@ -0,0 +1,30 @@
+/*
+ * This interface receives the events of a search as it runs, for monitoring.
+ * FC and MAC only call it when one is set, so a search without a listener pays a null check on each event and nothing more.
+ * The calls are made from the thread running the search; depths are the number of decisions on the branch.
+ */
+
+public interface SearchListener {
+    void searchStarted();
+
+    void searchFinished();
+
+    //a node is expanded, its decision being at the given depth
+    void nodeVisited(int depth);
+
+    //the branch of the decision at the given depth is undone
+    void backtracked(int depth);
+
+    //the propagation of a branch starts, to be followed by propagationFinished
+    void propagationStarted();
+
+    void propagationFinished(boolean consistent);
+
+    //number of entries in the AC3 queue as one is taken out (MAC only)
+    void queueLength(int length);
+
+    //revising the domain of var against otherVar wiped it out
+    void wipedOut(int var, int otherVar);
+
+    void restarted();
+}
@@ -0,0 +1,273 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/*
+ * This class is a search listener that keeps live metrics of a search: nodes per second, backtracks, the current and deepest
+ * depth, the time each node spends propagating, the lengths of the AC3 queue and the wipe-outs of each constraint.
+ * Once registered they can be read over JMX while the search runs, and the search emits JFR events: one per propagation and per
+ * wipe-out, and statistics every second, recorded with e.g. java -XX:StartFlightRecording=filename=search.jfr.
+ * The metrics are reset when a search starts, so a listener shared by successive searches shows the last one.
+ */
+
+public class SearchMetrics implements SearchListener, SearchMetricsMBean {
+    @Name("csp.Propagation")
+    @Label("Propagation")
+    @Category("CSP")
+    @Description("Propagation of one branch of the search")
+    @StackTrace(false)
+    @Threshold("50 us")   //most propagations take a few microseconds, recording them all would cost more than the search
+    public static class PropagationEvent extends Event {
+        @Label("Depth")
+        int depth;
+
+        @Label("Consistent")
+        boolean consistent;
+    }
+
+    @Name("csp.WipeOut")
+    @Label("Wipe-out")
+    @Category("CSP")
+    @Description("Domain wiped out by revising it against a constraint")
+    @StackTrace(false)
+    public static class WipeOutEvent extends Event {
+        @Label("Variable")
+        int variable;
+
+        @Label("Other Variable")
+        int otherVariable;
+
+        @Label("Depth")
+        int depth;
+    }
+
+    @Name("csp.SearchStatistics")
+    @Label("Search Statistics")
+    @Category("CSP")
+    @Period("1 s")
+    @StackTrace(false)
+    public static class StatisticsEvent extends Event {
+        @Label("Nodes")
+        long nodes;
+
+        @Label("Nodes per Second")
+        double nodesPerSecond;
+
+        @Label("Backtracks")
+        long backtracks;
+
+        @Label("Depth")
+        int depth;
+
+        @Label("Wipe-outs")
+        long wipeOuts;
+    }
+
+    private static final EventType PROPAGATION = EventType.getEventType(PropagationEvent.class);
+    private static final EventType WIPE_OUT = EventType.getEventType(WipeOutEvent.class);
+
+    private volatile long nodes = 0;
+    private volatile long backtracks = 0;
+    private volatile int depth = 0;
+    private volatile int maxDepth = 0;
+    private volatile long restarts = 0;
+    private volatile long wipeOuts = 0;
+    private volatile long startTime = 0;   //System.nanoTime when the search started
+    private volatile long endTime = 0;   //System.nanoTime when it finished, 0 while it runs
+    private long propagationStart = 0;   //System.nanoTime when the current propagation started
+    private PropagationEvent propagationEvent;   //event of the current propagation, null unless JFR records it
+    private Histogram propagationNanos = new Histogram();   //time of each propagation
+    private Histogram queueLengths = new Histogram();   //length of the AC3 queue at each poll
+    private Map<Long, Long> constraintWipeOuts = new ConcurrentHashMap<>();   //wipe-outs by pair of variables, smallest first
+    private ObjectName objectName;   //name registered over JMX, null if not registered
+    private Runnable statistics = this::emitStatistics;   //hook of the periodic JFR event
+
+    //registers the metrics over JMX under the given name, and the periodic JFR statistics event
+    public void register(String name) throws JMException {
+        objectName = new ObjectName("csp:type=SearchMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        FlightRecorder.addPeriodicEvent(StatisticsEvent.class, statistics);
+    }
+
+    public void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            FlightRecorder.removePeriodicEvent(statistics);
+            objectName = null;
+        }
+    }
+
+    public void searchStarted() {
+        nodes = 0;
+        backtracks = 0;
+        depth = 0;
+        maxDepth = 0;
+        restarts = 0;
+        wipeOuts = 0;
+        propagationNanos.reset();
+        queueLengths.reset();
+        constraintWipeOuts.clear();
+        endTime = 0;
+        startTime = System.nanoTime();
+    }
+
+    public void searchFinished() {
+        endTime = System.nanoTime();
+    }
+
+    public void nodeVisited(int depth) {
+        nodes++;
+        this.depth = depth;
+
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    public void backtracked(int depth) {
+        backtracks++;
+        this.depth = depth;
+    }
+
+    public void propagationStarted() {
+        if (PROPAGATION.isEnabled()) {
+            propagationEvent = new PropagationEvent();
+            propagationEvent.begin();
+        }
+
+        propagationStart = System.nanoTime();
+    }
+
+    public void propagationFinished(boolean consistent) {
+        propagationNanos.record(System.nanoTime() - propagationStart);
+
+        if (propagationEvent != null) {
+            propagationEvent.end();
+
+            if (propagationEvent.shouldCommit()) {
+                propagationEvent.depth = depth;
+                propagationEvent.consistent = consistent;
+                propagationEvent.commit();
+            }
+
+            propagationEvent = null;
+        }
+    }
+
+    public void queueLength(int length) {
+        queueLengths.record(length);
+    }
+
+    public void wipedOut(int var, int otherVar) {
+        wipeOuts++;
+        constraintWipeOuts.merge(((long) Math.min(var, otherVar) << 32) | Math.max(var, otherVar), 1L, Long::sum);
+
+        if (WIPE_OUT.isEnabled()) {
+            WipeOutEvent event = new WipeOutEvent();
+            event.variable = var;
+            event.otherVariable = otherVar;
+            event.depth = depth;
+            event.commit();
+        }
+    }
+
+    public void restarted() {
+        restarts++;
+    }
+
+    private void emitStatistics() {
+        StatisticsEvent event = new StatisticsEvent();
+        event.nodes = nodes;
+        event.nodesPerSecond = getNodesPerSecond();
+        event.backtracks = backtracks;
+        event.depth = depth;
+        event.wipeOuts = wipeOuts;
+        event.commit();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public double getNodesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return (elapsed == 0) ? 0 : nodes * 1000.0 / elapsed;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    public long getWipeOuts() {
+        return wipeOuts;
+    }
+
+    public double getMeanPropagationMicros() {
+        return propagationNanos.getMean() / 1000;
+    }
+
+    public long getP99PropagationMicros() {
+        return propagationNanos.getPercentile(0.99) / 1000;
+    }
+
+    public double getMeanQueueLength() {
+        return queueLengths.getMean();
+    }
+
+    public long getMaxQueueLength() {
+        return queueLengths.getMax();
+    }
+
+    public String[] getTopWipeOutConstraints() {
+        return constraintWipeOuts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(10)
+                .map(e -> (e.getKey() >>> 32) + "-" + (e.getKey() & 0xFFFFFFFFL) + ": " + e.getValue())
+                .toArray(String[]::new);
+    }
+
+    public long getElapsedMillis() {
+        if (startTime == 0) {
+            return 0;
+        }
+
+        return ((endTime == 0 ? System.nanoTime() : endTime) - startTime) / 1_000_000;
+    }
+
+    public void printSummary() {
+        System.out.println("Search metrics: " + nodes + " nodes (" + String.format("%.0f", getNodesPerSecond()) + "/s), "
+                + backtracks + " backtracks, max depth " + maxDepth + ", " + restarts + " restarts");
+        System.out.println("Propagation per node: mean " + String.format("%.1f", getMeanPropagationMicros()) + "us, p99 "
+                + getP99PropagationMicros() + "us, max " + propagationNanos.getMax() / 1000 + "us");
+
+        if (queueLengths.getCount() > 0) {
+            System.out.println("AC3 queue length: mean " + String.format("%.1f", getMeanQueueLength()) + ", max " + getMaxQueueLength());
+        }
+
+        System.out.println("Wipe-outs: " + wipeOuts + (wipeOuts == 0 ? "" : ", most by constraint " + String.join(", ", getTopWipeOutConstraints())));
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This interface is the JMX view of SearchMetrics, registered as csp:type=SearchMetrics,name=<name> and readable live from
+ * jconsole or any JMX client while the search runs.
+ */
+
+public interface SearchMetricsMBean {
+    long getNodes();
+
+    double getNodesPerSecond();
+
+    long getBacktracks();
+
+    int getDepth();
+
+    int getMaxDepth();
+
+    long getRestarts();
+
+    long getWipeOuts();
+
+    double getMeanPropagationMicros();
+
+    long getP99PropagationMicros();
+
+    double getMeanQueueLength();
+
+    long getMaxQueueLength();
+
+    //the constraints that wiped out a domain most often, as "x-y: count", most often first
+    String[] getTopWipeOutConstraints();
+
+    long getElapsedMillis();
+}
@@ -0,0 +1,59 @@
+/*
+ * This class is the explicit search stack used by FC and MAC in place of recursion, one frame per decision on the current branch.
+ * A frame holds the variable and value of the decision and the branch the search is in, left (var = val) or right (var != val).
+ * Taking a branch opens exactly one level of the trail, so the trail markers line up with the frames and undoing the top level
+ * undoes the branch of the top frame.
+ * Every frame on the stack either assigns a variable or has removed a value, so the number of variables plus the number of values
+ * bounds the depth and the arrays are allocated once. As the branch is plain data it can be inspected, e.g. to checkpoint or
+ * split a search.
+ */
+
+public class SearchStack {
+    private final int[] vars;   //variable of the decision of each frame
+    private final int[] vals;   //value of the decision of each frame
+    private final boolean[] right;   //whether each frame is in its right branch
+    private int size = 0;   //number of frames
+
+    public SearchStack(int capacity) {
+        vars = new int[capacity];
+        vals = new int[capacity];
+        right = new boolean[capacity];
+    }
+
+    //pushes a frame for the decision var = val, in its left branch
+    public void push(int var, int val) {
+        vars[size] = var;
+        vals[size] = val;
+        right[size++] = false;
+    }
+
+    public void pop() {
+        size--;
+    }
+
+    //moves the top frame to its right branch
+    public void setRight() {
+        right[size - 1] = true;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //variable of the decision of the frame at the given depth, 0 being the bottom of the stack
+    public int getVar(int depth) {
+        return vars[depth];
+    }
+
+    public int getVal(int depth) {
+        return vals[depth];
+    }
+
+    public boolean isRight(int depth) {
+        return right[depth];
+    }
+}
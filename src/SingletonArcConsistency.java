@@ -0,0 +1,153 @@
+/*
+ * This class enforces singleton arc consistency: a value is kept only if assigning it and enforcing arc consistency wipes out no domain.
+ * SAC-1 tests every value again after any sweep that removed something.
+ * The incremental variant, after SAC-Opt, keeps the domains each successful test ended with, and when a value is removed only the
+ * values whose test still had it are tested again, as the others would end exactly as before.
+ */
+
+public class SingletonArcConsistency implements Preprocessor {
+    private boolean incremental;   //SAC-Opt instead of SAC-1
+
+    public SingletonArcConsistency(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean apply(MAC engine, BinaryCSP csp) {
+        if (!engine.propagate()) {
+            return false;
+        }
+
+        return incremental ? sacOpt(engine, csp) : sac1(engine, csp);
+    }
+
+    private boolean sac1(MAC engine, BinaryCSP csp) {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int x = 0; x < csp.getNoVariables(); x++) {
+                Domain domain = engine.getDomain(x);
+
+                for (int a = domain.min(); a != Domain.NONE; a = domain.next(a)) {
+                    if (engine.isCancelled()) {
+                        return true;   //every value removed so far is inconsistent, so stopping here is sound
+                    }
+
+                    if (!test(engine, x, a, null)) {
+                        changed = true;
+
+                        if (!engine.prune(x, a)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean sacOpt(MAC engine, BinaryCSP csp) {
+        int n = csp.getNoVariables();
+        long[][][][] ends = new long[n][][][];   //ends[x][a - lb(x)][y]: domain of y at the end of the test of x = a, null until tested
+        ArcQueue queue = new ArcQueue(n, 0, true);   //variables with values to test
+        long[][] before = new long[n][];
+
+        for (int x = 0; x < n; x++) {
+            ends[x] = new long[csp.getUB(x) - csp.getLB(x) + 1][][];
+            queue.addVariable(x);
+        }
+
+        while (!queue.isEmpty()) {
+            int x = queue.poll();
+            Domain domain = engine.getDomain(x);
+
+            for (int a = domain.min(); a != Domain.NONE; a = domain.next(a)) {
+                if (engine.isCancelled()) {
+                    return true;
+                }
+
+                int index = a - csp.getLB(x);
+
+                if (ends[x][index] != null) {
+                    continue;
+                }
+
+                ends[x][index] = new long[n][];
+
+                if (test(engine, x, a, ends[x][index])) {
+                    continue;
+                }
+
+                for (int y = 0; y < n; y++) {
+                    before[y] = engine.getDomain(y).getWords().clone();
+                }
+
+                if (!engine.prune(x, a)) {
+                    return false;
+                }
+
+                for (int y = 0; y < n; y++) {
+                    if (removed(before[y], engine.getDomain(y).getWords())) {
+                        retest(engine, csp, ends, y, before[y], queue);
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    //turns before into the values removed since, returns false if there are none
+    private static boolean removed(long[] before, long[] now) {
+        boolean any = false;
+
+        for (int w = 0; w < before.length; w++) {
+            before[w] &= ~now[w];
+            any |= before[w] != 0;
+        }
+
+        return any;
+    }
+
+    //forgets every test that ended with one of the values removed from y, so that it is done again
+    private static void retest(MAC engine, BinaryCSP csp, long[][][][] ends, int y, long[] removed, ArcQueue queue) {
+        for (int z = 0; z < ends.length; z++) {
+            Domain domain = engine.getDomain(z);
+
+            for (int c = domain.min(); c != Domain.NONE; c = domain.next(c)) {
+                long[][] end = ends[z][c - csp.getLB(z)];
+
+                if (end != null && intersects(end[y], removed)) {
+                    ends[z][c - csp.getLB(z)] = null;
+                    queue.addVariable(z);
+                }
+            }
+        }
+    }
+
+    //the singleton test of x = a, keeping the domains it ends with in end when given and successful
+    private static boolean test(MAC engine, int x, int a, long[][] end) {
+        boolean consistent = engine.probe(x, a);
+
+        if (consistent && end != null) {
+            for (int y = 0; y < end.length; y++) {
+                end[y] = engine.getDomain(y).getWords().clone();
+            }
+        }
+
+        engine.undoProbe(x, a);
+        return consistent;
+    }
+
+    private static boolean intersects(long[] first, long[] second) {
+        for (int w = 0; w < first.length; w++) {
+            if ((first[w] & second[w]) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
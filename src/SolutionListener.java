@@ -0,0 +1,9 @@
+/*
+ * This interface receives the solutions of an all-solutions search as they are found.
+ * The array passed is the solver's own assignment, indexed by variable, and must be copied if it is kept.
+ * In a parallel search the listener is called from several worker threads at once.
+ */
+
+public interface SolutionListener {
+    void onSolution(int[] solution);
+}
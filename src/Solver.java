@@ -1,11 +1,39 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import javax.management.JMException;
 
 /*
  * This class is the starting point of running the search algorithms.
  * It prompts the user to choose between FC or MAC.
+ * The arguments after the file pick the variable ordering (dom, the default, dom_deg, dom_wdeg or activity),
+ * the value ordering (lex, the default, max_supports or random), restarts (luby or geometric) and the seed of random value
+ * ordering and of the random tie-breaking used with restarts, in any order.
+ * The portfolio starts every configuration from these options, varying them from there.
+ * Preprocessing stages (ac, sac1, sac_opt, rpc) can be given too, and run in the order given before the search on the reduced CSP.
+ * With lex_leader or sbds the symmetries in the .sym file next to the instance are broken, statically by lex-leader constraints
+ * or during the search.
+ * With metrics the sequential searches report live metrics over JMX and as JFR events, and print a summary of them at the end.
+ * With profile the arc revisions of the sequential search reported are attributed to their constraints and variables, and the
+ * most expensive ones are ranked at the end.
+ * With --batch first, the instances given are solved without any prompt by BatchSolver.
  */
 
 public class Solver {
+  private static VariableHeuristic.Type ordering = VariableHeuristic.Type.DOM;
+  private static ValueHeuristic.Type valueOrdering = ValueHeuristic.Type.LEX;
+  private static RestartSchedule restarts = RestartSchedule.NONE;
+  private static long seed = 0;
+  static Preprocessing preprocessing = new Preprocessing();
+  static boolean lexLeader = false;
+  static boolean dynamicSymmetryBreaking = false;
+  private static List<Symmetry> symmetries = null;   // the group broken during the search, null unless sbds
+  static SearchMetrics metrics = null;   // listener of the sequential searches, null unless metrics
+  static boolean profile = false;
+  private static ConstraintProfiler profiler = null;   // profiler of the search reported, null unless profile
+
   public static void main(String[] args) {
     Scanner scanner = new Scanner(System.in);
     BinaryCSPReader reader = new BinaryCSPReader() ;
@@ -13,12 +41,41 @@ public class Solver {
     FC fcSolver;
     MAC macSolver;
   
-    if (args.length != 1) {
-      System.out.println("Usage: java BinaryCSPReader <file.csp>") ;
+    if (args.length > 0 && args[0].equals("--batch")) {
+      BatchSolver.main(Arrays.copyOfRange(args, 1, args.length)) ;
+      scanner.close();
+      return;
+    }
+
+    if (args.length < 1) {
+      System.out.println("Usage: java Solver <file.csp> [dom|dom_deg|dom_wdeg|activity] [lex|max_supports|random] [luby|geometric] [seed] [ac|sac1|sac_opt|rpc ...] [lex_leader|sbds] [metrics] [profile]") ;
+      System.out.println("       java Solver --batch [--algorithm fc|fc_cbj|mac|mac_ac3|mac_ac3rm|mac_ac2001] [--threads n] [--time-limit seconds] [--node-limit n] [--list file] <file.csp|dir> ... [options as above]") ;
+      scanner.close();
+      return;
+    }
+
+    for (int i = 1; i < args.length; i++) {
+      if (!parseOption(args[i])) {
+        System.out.println("Unknown option: " + args[i]) ;
+        scanner.close();
+        return;
+      }
+    }
+  
+    if (lexLeader && dynamicSymmetryBreaking) {
+      System.out.println("lex_leader and sbds cannot be combined: the lex-leader constraints break the symmetries sbds relies on") ;
       scanner.close();
       return;
     }
   
+    if (metrics != null) {
+      try {
+        metrics.register("Solver") ;
+      } catch (JMException e) {
+        System.out.println("Search metrics not registered over JMX: " + e.getMessage()) ;
+      }
+    }
+
     csp = reader.readBinaryCSP(args[0]) ;
 
     if (csp == null) {
@@ -27,21 +84,202 @@ public class Solver {
       return;
     }
 
-    System.out.println("Choose the search algorithm to run. \n 1: Forward Checking \n 2: Maintaining Arc Consistency");
+    if (lexLeader || dynamicSymmetryBreaking) {
+      List<Symmetry> group;
+      try {
+        group = Symmetry.read(Symmetry.fileFor(args[0]), csp) ;
+      } catch (IOException e) {
+        System.out.println("Error reading symmetries: " + e.getMessage()) ;
+        scanner.close();
+        return;
+      }
+      System.out.println((lexLeader ? "Lex-leader constraints" : "Symmetry breaking during search") + ": " + group.size() + " symmetries") ;
+      if (lexLeader)
+        csp = LexLeader.post(csp, group) ;
+      else
+        symmetries = group ;
+    }
+
+    if (!preprocessing.isEmpty()) {
+      csp = preprocessing.run(csp) ;
+      preprocessing.printReport(csp.getNoVariables()) ;
+    }
+
+    if (profile)
+      profiler = new ConstraintProfiler(csp) ;
+
+    System.out.println("Choose the search algorithm to run. \n 1: Forward Checking \n 2: Maintaining Arc Consistency"
+        + " \n 3: Maintaining Arc Consistency (AC3) \n 4: Maintaining Arc Consistency (AC3rm) \n 5: Maintaining Arc Consistency (AC2001)"
+        + " \n 6: Portfolio (FC and MAC variants in parallel)"
+        + " \n 7: Parallel Maintaining Arc Consistency (work-stealing, compared with the sequential run)"
+        + " \n 8: Count all solutions (Maintaining Arc Consistency, sequential and parallel)"
+        + " \n 9: Forward Checking with conflict-directed backjumping (FC-CBJ, compared with plain FC)");
     int choice = scanner.nextInt();
 
     if (choice == 1) {
       System.out.println("Initiating Forward Checking...");
-      fcSolver = new FC(csp);
-      fcSolver.solve();
+      fcSolver = newFC(csp);
+      fcSolver.setProfiler(profiler);
+      report(fcSolver, fcSolver.solve());
     } else if (choice == 2) {
       System.out.println("Initiating Maintaining Arc Consistency...");
-      macSolver = new MAC(csp);
-      macSolver.solve();
+      macSolver = newMAC(csp, MAC.Propagator.AC3_BIT);
+      macSolver.setProfiler(profiler);
+      report(macSolver, macSolver.solve());
+    } else if (choice >= 3 && choice <= 5) {
+      MAC.Propagator propagator = (choice == 3) ? MAC.Propagator.AC3 : (choice == 4) ? MAC.Propagator.AC3_RM : MAC.Propagator.AC2001;
+      System.out.println("Initiating Maintaining Arc Consistency (" + propagator + ")...");
+      macSolver = newMAC(csp, propagator);
+      macSolver.setProfiler(profiler);
+      report(macSolver, macSolver.solve());
+    } else if (choice == 6) {
+      System.out.println("Initiating Portfolio...");
+      Portfolio portfolio = Portfolio.defaultPortfolio(csp, ordering, valueOrdering, restarts, seed);
+      try {
+        boolean found = portfolio.solve();
+        System.out.println("Finished first: " + portfolio.getWinnerName() + " (" + portfolio.getTimeTaken() + "ms)");
+        report(portfolio.getWinner(), found);
+      } catch (InterruptedException e) {
+        System.out.println("Search interrupted");
+      }
+    } else if (choice == 7) {
+      int workers = Runtime.getRuntime().availableProcessors();
+      System.out.println("Initiating sequential Maintaining Arc Consistency...");
+      macSolver = newMAC(csp, MAC.Propagator.AC3_BIT);
+      boolean found = macSolver.solve();
+      System.out.println("Sequential: " + (found ? "solution" : "no solution") + ", " + macSolver.getNodesVisited()
+          + " nodes, " + macSolver.getTimeTaken() + "ms");
+      System.out.println("Initiating parallel Maintaining Arc Consistency on " + workers + " workers...");
+      ParallelSearch parallel = new ParallelSearch(csp, c -> newWorkerMAC(c, MAC.Propagator.AC3_BIT), workers);
+      found = parallel.solve();
+      System.out.println("Parallel: " + (found ? "solution" : "no solution") + ", " + parallel.getNodesVisited() + " nodes in "
+          + parallel.getSubproblems() + " subproblems, " + parallel.getTimeTaken() + "ms");
+      System.out.println("Speedup: " + String.format(Locale.ROOT, "%.2f", (double) macSolver.getTimeTaken() / Math.max(parallel.getTimeTaken(), 1)));
+      if (found) {
+        System.out.println("Solution: ");
+        for (int i = 0; i < parallel.getSolution().length; i++)
+          System.out.println("Variable " + i + " = " + parallel.getSolution()[i]);
+      }
+    } else if (choice == 8) {
+      int workers = Runtime.getRuntime().availableProcessors();
+      System.out.println("Counting all solutions with Maintaining Arc Consistency...");
+      macSolver = newMAC(csp, MAC.Propagator.AC3_BIT);
+      long count = macSolver.solveAll(null);
+      System.out.println("Sequential: " + count + " solutions, " + macSolver.getNodesVisited() + " nodes, "
+          + macSolver.getTimeTaken() + "ms");
+      ParallelSearch parallel = new ParallelSearch(csp, c -> newWorkerMAC(c, MAC.Propagator.AC3_BIT), workers);
+      count = parallel.solveAll(null);
+      System.out.println("Parallel (" + workers + " workers): " + count + " solutions, " + parallel.getNodesVisited() + " nodes in "
+          + parallel.getSubproblems() + " subproblems, " + parallel.getTimeTaken() + "ms"
+          + (symmetries != null ? " (without symmetry breaking during search)" : ""));
+    } else if (choice == 9) {
+      System.out.println("Initiating Forward Checking...");
+      fcSolver = new FC(csp, ordering, valueOrdering, seed);
+      fcSolver.setSearchListener(metrics);
+      boolean found = fcSolver.solve();
+      System.out.println("FC: " + (found ? "solution" : "no solution") + ", " + fcSolver.getNodesVisited() + " nodes, "
+          + fcSolver.getTimeTaken() + "ms");
+      System.out.println("Initiating Forward Checking with conflict-directed backjumping...");
+      fcSolver = new FC(csp, ordering, valueOrdering, seed);
+      fcSolver.setBackjumping(true);
+      fcSolver.setSearchListener(metrics);
+      fcSolver.setProfiler(profiler);
+      found = fcSolver.solve();
+      System.out.println("FC-CBJ: " + (found ? "solution" : "no solution") + ", " + fcSolver.getNodesVisited() + " nodes, "
+          + fcSolver.getTimeTaken() + "ms");
+      report(fcSolver, found);
     } else {
       System.out.println("Invalid response");
     }
 
+    if (metrics != null && choice != 6)
+      metrics.printSummary() ;
+    if (profiler != null && (choice <= 5 || choice == 9))
+      profiler.printReport(20) ;
+
     scanner.close();
   }
+
+  // reads an ordering, restart schedule, preprocessing stage, symmetry breaking mode or seed, returns false if the option is none of them
+  static boolean parseOption(String option) {
+    String name = option.toUpperCase().replace('/', '_');
+    for (VariableHeuristic.Type type : VariableHeuristic.Type.values()) {
+      if (type.name().equals(name)) {
+        ordering = type;
+        return true;
+      }
+    }
+    for (ValueHeuristic.Type type : ValueHeuristic.Type.values()) {
+      if (type.name().equals(name)) {
+        valueOrdering = type;
+        return true;
+      }
+    }
+    for (Preprocessor.Type stage : Preprocessor.Type.values()) {
+      if (stage.name().equals(name)) {
+        preprocessing.add(stage);
+        return true;
+      }
+    }
+    if (name.equals("METRICS")) {
+      metrics = new SearchMetrics() ;
+      return true;
+    }
+    if (name.equals("PROFILE")) {
+      profile = true;
+      return true;
+    }
+    if (name.equals("LEX_LEADER") || name.equals("SBDS")) {
+      lexLeader |= name.equals("LEX_LEADER");
+      dynamicSymmetryBreaking |= name.equals("SBDS");
+      return true;
+    }
+    for (RestartSchedule schedule : RestartSchedule.values()) {
+      if (schedule.name().equals(name)) {
+        restarts = schedule;
+        return true;
+      }
+    }
+    try {
+      seed = Long.parseLong(option);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  // an FC solver with the orderings, restarts, symmetry breaking and metrics chosen on the command line
+  static FC newFC(BinaryCSP csp) {
+    FC solver = new FC(csp, ordering, valueOrdering, seed);
+    solver.setRestarts(restarts);
+    solver.setSymmetryBreaking(symmetries);
+    solver.setSearchListener(metrics);
+    return solver;
+  }
+
+  // a MAC solver with the orderings, restarts, symmetry breaking and metrics chosen on the command line
+  static MAC newMAC(BinaryCSP csp, MAC.Propagator propagator) {
+    MAC solver = newWorkerMAC(csp, propagator);
+    solver.setSymmetryBreaking(symmetries);
+    solver.setSearchListener(metrics);
+    return solver;
+  }
+
+  // the same without symmetry breaking during search, which is only sound on the whole tree and not on the subproblems of parallel search
+  private static MAC newWorkerMAC(BinaryCSP csp, MAC.Propagator propagator) {
+    MAC solver = new MAC(csp, propagator, false, ordering, valueOrdering, seed);
+    solver.setRestarts(restarts);
+    return solver;
+  }
+
+  // prints the solution, or that the search finished without one
+  private static void report(SearchAlgorithm solver, boolean found) {
+    if (found) {
+      solver.printSolution();
+    } else {
+      System.out.println("Search terminated: unsolvable csp");
+      System.out.println("Nodes visited: " + solver.getNodesVisited());
+      System.out.println("Time taken: " + solver.getTimeTaken() + "ms");
+    }
+  }
 }
\ No newline at end of file
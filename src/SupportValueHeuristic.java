@@ -0,0 +1,44 @@
+import java.util.List;
+
+/*
+ * This class chooses the value with the most supports in the current domains of the neighbours (max-supports, or min-conflicts),
+ * as it leaves the most room for the variables still to be assigned.
+ * Supports are counted through the constraint index, a popcount of each support row against the neighbouring domain for tables.
+ */
+
+public class SupportValueHeuristic implements ValueHeuristic {
+    private BinaryCSP csp;   //csp instance
+    private Domain[] domains;   //current domain of each variable
+
+    public void initialise(BinaryCSP csp, List<Variable> variables) {
+        this.csp = csp;
+        domains = new Domain[variables.size()];
+
+        for (int i = 0; i < variables.size(); i++) {
+            domains[i] = variables.get(i).getDomain();
+        }
+    }
+
+    //ties go to the smallest value
+    public int select(int var, Domain domain) {
+        int[] neighbours = csp.getNeighbours(var);
+        BinaryConstraint[] constraints = csp.getNeighbourConstraints(var);
+        int best = domain.min();
+        long bestSupports = -1;
+
+        for (int val = domain.min(); val != Domain.NONE; val = domain.next(val)) {
+            long supports = 0;
+
+            for (int k = 0; k < neighbours.length; k++) {
+                supports += constraints[k].countSupports(var, val, domains[neighbours[k]]);
+            }
+
+            if (supports > bestSupports) {
+                best = val;
+                bestSupports = supports;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * This class is a symmetry of a CSP given as a permutation of its literals, the pairs var = val, that maps every solution to a
+ * solution. Literals it does not move are mapped to themselves.
+ * The symmetries of an instance are kept in a .sym file next to it, which the generators write with --symmetries: each symmetry
+ * starts with a line "s", followed by one line "var, val, imageVar, imageVal" per literal it moves. '/' starts a comment.
+ */
+
+public final class Symmetry {
+    private final int[][] domainBounds;   //bounds of each variable
+    private final int[][] imageVars;   //imageVars[x][a - lb(x)]: variable of the image of x = a
+    private final int[][] imageVals;   //imageVals[x][a - lb(x)]: value of the image of x = a
+
+    //the identity on variables with the given bounds, to be changed with map
+    public Symmetry(int[][] domainBounds) {
+        this.domainBounds = domainBounds;
+        imageVars = new int[domainBounds.length][];
+        imageVals = new int[domainBounds.length][];
+
+        for (int x = 0; x < domainBounds.length; x++) {
+            int width = domainBounds[x][1] - domainBounds[x][0] + 1;
+            imageVars[x] = new int[width];
+            imageVals[x] = new int[width];
+
+            for (int i = 0; i < width; i++) {
+                imageVars[x][i] = x;
+                imageVals[x][i] = domainBounds[x][0] + i;
+            }
+        }
+    }
+
+    //maps the literal var = val to imageVar = imageVal
+    public void map(int var, int val, int imageVar, int imageVal) {
+        imageVars[var][val - domainBounds[var][0]] = imageVar;
+        imageVals[var][val - domainBounds[var][0]] = imageVal;
+    }
+
+    public int imageVar(int var, int val) {
+        return imageVars[var][val - domainBounds[var][0]];
+    }
+
+    public int imageVal(int var, int val) {
+        return imageVals[var][val - domainBounds[var][0]];
+    }
+
+    //whether every literal of the variable is mapped to itself
+    public boolean fixes(int var) {
+        for (int val = domainBounds[var][0]; val <= domainBounds[var][1]; val++) {
+            if (imageVar(var, val) != var || imageVal(var, val) != val) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //the name of the .sym file of an instance
+    public static String fileFor(String instanceFile) {
+        int dot = instanceFile.lastIndexOf('.');
+        return (dot > instanceFile.lastIndexOf('/') ? instanceFile.substring(0, dot) : instanceFile) + ".sym";
+    }
+
+    //reads the symmetries of a CSP, every literal and its image must lie within the bounds of their variables
+    public static List<Symmetry> read(String fileName, BinaryCSP csp) throws IOException {
+        int[][] domainBounds = new int[csp.getNoVariables()][2];
+
+        for (int x = 0; x < domainBounds.length; x++) {
+            domainBounds[x][0] = csp.getLB(x);
+            domainBounds[x][1] = csp.getUB(x);
+        }
+
+        List<Symmetry> group = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('/');
+                line = ((comment == -1) ? line : line.substring(0, comment)).trim();
+
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                if (line.equals("s")) {
+                    group.add(new Symmetry(domainBounds));
+                    continue;
+                }
+
+                String[] tokens = line.split("[,\\s]+");
+
+                if (group.isEmpty() || tokens.length != 4) {
+                    throw new IOException("Expected a literal and its image after a line s at line " + lineNumber);
+                }
+
+                int[] literal = new int[4];
+
+                for (int i = 0; i < 4; i++) {
+                    literal[i] = Integer.parseInt(tokens[i]);
+                }
+
+                if (!inBounds(domainBounds, literal[0], literal[1]) || !inBounds(domainBounds, literal[2], literal[3])) {
+                    throw new IOException("Literal out of the bounds of its variable at line " + lineNumber);
+                }
+
+                group.get(group.size() - 1).map(literal[0], literal[1], literal[2], literal[3]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed symmetry file " + fileName + ": " + e.getMessage());
+        }
+
+        return group;
+    }
+
+    private static boolean inBounds(int[][] domainBounds, int var, int val) {
+        return var >= 0 && var < domainBounds.length && val >= domainBounds[var][0] && val <= domainBounds[var][1];
+    }
+
+    //writes the symmetries with the literals each one moves, after a comment line describing them
+    public static void write(List<Symmetry> group, String fileName, String description) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write("//" + description + "\n");
+
+            for (Symmetry symmetry : group) {
+                writer.write("\ns\n");
+
+                for (int var = 0; var < symmetry.domainBounds.length; var++) {
+                    for (int val = symmetry.domainBounds[var][0]; val <= symmetry.domainBounds[var][1]; val++) {
+                        if (symmetry.imageVar(var, val) != var || symmetry.imageVal(var, val) != val) {
+                            writer.write(var + ", " + val + ", " + symmetry.imageVar(var, val) + ", " + symmetry.imageVal(var, val) + "\n");
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+/*
+ * This class is the undo log used to backtrack the search.
+ * Every value pruned from a domain is recorded with the domain it came from, and each search level starts with a marker,
+ * so undoing a level restores only the values removed since its marker instead of copying every domain.
+ * Entries of int arrays that have to be backtracked with the domains (such as AC2001 last supports) can be saved too.
+ */
+
+public class Trail {
+    private Domain[] domains;   //domain each recorded value was removed from
+    private int[] values;   //recorded values
+    private int size = 0;   //number of recorded values
+    private int[] markers = new int[16];   //size of the trail when each level started
+    private int levels = 0;   //number of open levels
+    private int[][] savedArrays = new int[16][];   //arrays whose entries were overwritten
+    private int[] savedIndices = new int[16];   //index of each overwritten entry
+    private int[] savedValues = new int[16];   //value each entry had before it was overwritten
+    private int saved = 0;   //number of saved entries
+    private int[] savedMarkers = new int[16];   //number of saved entries when each level started
+
+    //the capacity should be the total number of values over all domains, as a value can only be on the trail once
+    public Trail(int capacity) {
+        domains = new Domain[Math.max(capacity, 16)];
+        values = new int[domains.length];
+    }
+
+    //opens a new level
+    public void mark() {
+        if (levels == markers.length) {
+            markers = Arrays.copyOf(markers, levels * 2);
+            savedMarkers = Arrays.copyOf(savedMarkers, levels * 2);
+        }
+
+        savedMarkers[levels] = saved;
+        markers[levels++] = size;
+    }
+
+    //removes a value from a domain and records it on the trail, returns false if the value was not in the domain
+    public boolean prune(Domain domain, int val) {
+        if (!domain.remove(val)) {
+            return false;
+        }
+
+        if (size == values.length) {
+            domains = Arrays.copyOf(domains, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        domains[size] = domain;
+        values[size++] = val;
+        return true;
+    }
+
+    //overwrites an entry of an array, saving its old value so that it is restored when the level is undone
+    public void set(int[] array, int index, int value) {
+        if (levels > 0) {
+            if (saved == savedValues.length) {
+                savedArrays = Arrays.copyOf(savedArrays, saved * 2);
+                savedIndices = Arrays.copyOf(savedIndices, saved * 2);
+                savedValues = Arrays.copyOf(savedValues, saved * 2);
+            }
+
+            savedArrays[saved] = array;
+            savedIndices[saved] = index;
+            savedValues[saved++] = array[index];
+        }
+
+        array[index] = value;
+    }
+
+    //restores every value removed and every entry overwritten since the last marker and closes that level
+    public void undo() {
+        int marker = markers[--levels];
+
+        while (size > marker) {
+            size--;
+            domains[size].add(values[size]);
+            domains[size] = null;
+        }
+
+        int savedMarker = savedMarkers[levels];
+
+        while (saved > savedMarker) {
+            saved--;
+            savedArrays[saved][savedIndices[saved]] = savedValues[saved];
+            savedArrays[saved] = null;
+        }
+    }
+
+    public int getLevel() {
+        return levels;
+    }
+
+    public int size() {
+        return size;
+    }
+}
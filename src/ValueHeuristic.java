@@ -0,0 +1,33 @@
+import java.util.List;
+
+/*
+ * This interface is implemented by the value ordering heuristics shared by FC and MAC, which choose the value tried first
+ * when branching on a variable. The value is read straight off the bitset domain, so no ordering of the domain is ever built.
+ */
+
+public interface ValueHeuristic {
+    enum Type {
+        LEX,   //smallest value first
+        MAX_SUPPORTS,   //the value with the most supports left in the neighbouring domains, the one least in conflict
+        RANDOM   //a value at a random position, reproducible with the same seed
+    }
+
+    //builds a heuristic of the given type, the seed is only used by RANDOM
+    static ValueHeuristic create(Type type, long seed) {
+        switch (type) {
+            case MAX_SUPPORTS:
+                return new SupportValueHeuristic();
+            case RANDOM:
+                return new RandomValueHeuristic(seed);
+            default:
+                return (var, domain) -> domain.min();
+        }
+    }
+
+    //sets up the heuristic for the variables of the csp
+    default void initialise(BinaryCSP csp, List<Variable> variables) {
+    }
+
+    //chooses a value from the current domain of the variable
+    int select(int var, Domain domain);
+}
@@ -1,14 +1,12 @@
-import java.util.List;
-
 /*
  * This class represents a variable in a CSP.
  */
 
 public class Variable {
     private int var;   //the variable 
-    private List<Integer> domain;   //its domain
+    private Domain domain;   //its domain
 
-    public Variable(int var, List<Integer> domain) {
+    public Variable(int var, Domain domain) {
         this.var = var;
         this.domain = domain;
     }
@@ -17,14 +15,10 @@ public class Variable {
         return var;
     }
 
-    public List<Integer> getDomain() {
+    public Domain getDomain() {
         return domain;
     }
 
-    public void setDomain(List<Integer> domain) {
-        this.domain = domain;
-    }
-
     public int domainSize() {
         return domain.size();
     }
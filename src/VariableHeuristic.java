@@ -0,0 +1,52 @@
+import java.util.List;
+
+/*
+ * This interface is implemented by the variable ordering heuristics shared by FC and MAC.
+ * The solver reports assignments, pruning and wipe-outs to the heuristic as the search goes, so each heuristic keeps its
+ * scores up to date incrementally and choosing a variable only compares the cached scores of the unassigned variables.
+ */
+
+public interface VariableHeuristic {
+    enum Type {
+        DOM,   //smallest domain first
+        DOM_DEG,   //smallest domain size divided by the number of unassigned neighbours
+        DOM_WDEG,   //smallest domain size divided by the weights of the constraints with unassigned neighbours, bumped on every wipe-out
+        ACTIVITY   //smallest domain size divided by the activity, a decaying count of how often propagation pruned the domain
+    }
+
+    //builds a heuristic of the given type, each solver needs its own as a heuristic keeps the state of one search
+    static VariableHeuristic create(Type type) {
+        switch (type) {
+            case DOM_DEG:
+                return new DegreeHeuristic(false);
+            case DOM_WDEG:
+                return new DegreeHeuristic(true);
+            case ACTIVITY:
+                return new ActivityHeuristic();
+            default:
+                return new DomHeuristic();
+        }
+    }
+
+    //sets up the heuristic with every variable unassigned
+    void initialise(BinaryCSP csp, List<Variable> variables);
+
+    //chooses the unassigned variable to branch on next, ties go to the lowest variable unless they are randomised
+    int select();
+
+    //breaks ties at random from now on, so that runs restarted from the root do not repeat each other
+    default void randomiseTies(long seed) {
+    }
+
+    void assigned(int var);
+
+    void unassigned(int var);
+
+    //called when propagation removes values from the domain of var
+    default void pruned(int var) {
+    }
+
+    //called when revising var against other empties the domain of var
+    default void wipedOut(int var, int other) {
+    }
+}
@@ -1,56 +1,92 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public final class LangfordsGenerator {
 
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.out.println("Usage: java LangfordsGenerator <k> <n>");
+        List<String> flags = Arrays.asList(args).subList(Math.min(2, args.length), args.length);
+        if (args.length < 2 || !Arrays.asList("--binary", "--intensional", "--symmetries").containsAll(flags)) {
+            System.out.println("Usage: java LangfordsGenerator <k> <n> [--binary] [--intensional] [--symmetries]");
             System.out.println("for <k> sets of <n> integers");
             return;
         }
         int k = Integer.parseInt(args[0]);
         int n = Integer.parseInt(args[1]);
+        String extension = flags.contains("--binary") ? ".cspb" : ".csp";
+        boolean intensional = flags.contains("--intensional");
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("langfords" + k + "_" + n + ".csp"))) {
-            writer.write("//Langford, k = " + k + " n = " + n + "\n");
+        try (InstanceWriter writer = new InstanceWriter("langfords" + k + "_" + n + extension)) {
+            writer.text("//Langford, k = " + k + " n = " + n + "\n");
 
             int seqLength = k * n;
-            writer.write("\n// Number of variables:\n" + seqLength + "\n");
-            writer.write("\n// Domains of the variables: 1.. (inclusive)\n");
+            writer.text("\n// Number of variables:\n");
+            writer.variables(seqLength);
+            writer.text("\n// Domains of the variables: 1.. (inclusive)\n");
             for (int i = 0; i < seqLength; i++) {
-                writer.write("1, " + seqLength + "\n");
+                writer.domain(1, seqLength);
             }
 
-            writer.write("\n// constraints (vars indexed from 0, allowed tuples):\n");
+            writer.text("\n// constraints (vars indexed from 0, allowed tuples):\n");
 
             for (int block = 1; block <= n; block++) {
                 for (int i = 0; i < k; i++) {
-                    if (i < k - 1) {
-                        writer.write("c(" + ((block - 1) * k + i) + ", " + ((block - 1) * k + i + 1) + ")\n");
+                    if (i < k - 1 && intensional) {
+                        writer.intensional(BinaryConstraint.offset((block - 1) * k + i, (block - 1) * k + i + 1, block + 1));
+                        writer.text("\n");
+                    } else if (i < k - 1) {
+                        writer.constraint((block - 1) * k + i, (block - 1) * k + i + 1);
                         for (int pos = 1; pos < seqLength; pos++) {
                             if (pos + block + 1 <= seqLength) {
-                                writer.write(pos + ", " + (pos + block + 1) + "\n");
+                                writer.tuple(pos, pos + block + 1);
                             }
                         }
-                        writer.write("\n");
+                        writer.text("\n");
                     }
                     for (int j = block * k; j < seqLength; j++) {
-                        writer.write("c(" + ((block - 1) * k + i) + ", " + j + ")\n");
+                        if (intensional) {
+                            writer.intensional(BinaryConstraint.notEqual((block - 1) * k + i, j));
+                            writer.text("\n");
+                            continue;
+                        }
+                        writer.constraint((block - 1) * k + i, j);
                         for (int val1 = 1; val1 <= seqLength; val1++) {
                             for (int val2 = 1; val2 <= seqLength; val2++) {
                                 if (val1 != val2) {
-                                    writer.write(val1 + ", " + val2 + "\n");
+                                    writer.tuple(val1, val2);
                                 }
                             }
                         }
-                        writer.write("\n");
+                        writer.text("\n");
                     }
                 }
             }
+            if (flags.contains("--symmetries")) {
+                writeSymmetries(k, n);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    //writes the reversal of the sequence: occurrence i of a number at position pos goes to occurrence k - 1 - i at the mirrored position
+    private static void writeSymmetries(int k, int n) throws IOException {
+        int seqLength = k * n;
+        int[][] domainBounds = new int[seqLength][];
+        for (int i = 0; i < seqLength; i++) {
+            domainBounds[i] = new int[] {1, seqLength};
+        }
+        Symmetry reversal = new Symmetry(domainBounds);
+
+        for (int block = 1; block <= n; block++) {
+            for (int i = 0; i < k; i++) {
+                for (int pos = 1; pos <= seqLength; pos++) {
+                    reversal.map((block - 1) * k + i, pos, (block - 1) * k + k - 1 - i, seqLength + 1 - pos);
+                }
+            }
+        }
+        Symmetry.write(Collections.singletonList(reversal), "langfords" + k + "_" + n + ".sym",
+                "Langford, k = " + k + " n = " + n + ": reversal of the sequence (literals var, pos, image var, image pos)");
+    }
 }
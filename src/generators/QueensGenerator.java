@@ -1,39 +1,77 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public final class QueensGenerator {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java QueensGenerator <n>");
+        List<String> flags = Arrays.asList(args).subList(Math.min(1, args.length), args.length);
+        if (args.length < 1 || !Arrays.asList("--binary", "--intensional", "--symmetries").containsAll(flags)) {
+            System.out.println("Usage: java QueensGenerator <n> [--binary] [--intensional] [--symmetries]");
             return;
         }
         int n = Integer.parseInt(args[0]);
+        String extension = flags.contains("--binary") ? ".cspb" : ".csp";
+        boolean intensional = flags.contains("--intensional");
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(n + "Queens.csp"))) {
-            writer.write("//" + n + "-Queens.\n");
-            writer.write("\n// Number of variables:\n" + n + "\n");
-            writer.write("\n// Domains of the variables: 0.. (inclusive)\n");
+        try (InstanceWriter writer = new InstanceWriter(n + "Queens" + extension)) {
+            writer.text("//" + n + "-Queens.\n");
+            writer.text("\n// Number of variables:\n");
+            writer.variables(n);
+            writer.text("\n// Domains of the variables: 0.. (inclusive)\n");
             for (int i = 0; i < n; i++) {
-                writer.write("0, " + (n - 1) + "\n");
+                writer.domain(0, n - 1);
             }
-            writer.write("\n// constraints (vars indexed from 0, allowed tuples):\n");
+            writer.text("\n// constraints (vars indexed from 0, allowed tuples):\n");
 
             for (int row1 = 0; row1 < n - 1; row1++) {
                 for (int row2 = row1 + 1; row2 < n; row2++) {
-                    writer.write("c(" + row1 + ", " + row2 + ")\n");
+                    if (intensional) {
+                        writer.intensional(BinaryConstraint.difference(row1, row2, 0, row2 - row1, row1 - row2));
+                        writer.text("\n");
+                        continue;
+                    }
+                    writer.constraint(row1, row2);
                     for (int col1 = 0; col1 < n; col1++) {
                         for (int col2 = 0; col2 < n; col2++) {
                             if ((col1 != col2) && (Math.abs(col1 - col2) != (row2 - row1))) {
-                                writer.write(col1 + ", " + col2 + "\n");
+                                writer.tuple(col1, col2);
                             }
                         }
                     }
-                    writer.write("\n");
+                    writer.text("\n");
                 }
             }
+            if (flags.contains("--symmetries")) {
+                writeSymmetries(n);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    //writes the 7 symmetries of the board other than the identity: a queen on (row, col) goes to the transposed and/or
+    //reflected square, each bit of t choosing one of transposing, reflecting the rows and reflecting the columns
+    private static void writeSymmetries(int n) throws IOException {
+        int[][] domainBounds = new int[n][];
+        for (int i = 0; i < n; i++) {
+            domainBounds[i] = new int[] {0, n - 1};
+        }
+        List<Symmetry> group = new ArrayList<>();
+
+        for (int t = 1; t < 8; t++) {
+            Symmetry symmetry = new Symmetry(domainBounds);
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    int imageRow = ((t & 1) != 0) ? col : row;
+                    int imageCol = ((t & 1) != 0) ? row : col;
+                    imageRow = ((t & 2) != 0) ? n - 1 - imageRow : imageRow;
+                    imageCol = ((t & 4) != 0) ? n - 1 - imageCol : imageCol;
+                    symmetry.map(row, col, imageRow, imageCol);
+                }
+            }
+            group.add(symmetry);
+        }
+        Symmetry.write(group, n + "Queens.sym", n + "-Queens: rotations and reflections of the board (literals row, col, image row, image col)");
+    }
 }
@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * FC-CBJ only skips levels whose decisions played no part in a failure, so it must agree with chronological FC on every instance.
+ * On the bundled instances it also visits no more nodes.
+ */
+
+public class BackjumpingTest {
+    private static FC cbj(BinaryCSP csp) {
+        FC solver = new FC(csp);
+        solver.setBackjumping(true);
+        return solver;
+    }
+
+    @Test
+    public void sameResultsAsFC() {
+        String[] instances = {"8Queens", "20Queens", "FinnishSudoku", "langfords3_9", "langfords3_10", "langfords2_9", "langfords3_4",
+            "Sudoku3"};
+
+        for (String instance : instances) {
+            FC fc = new FC(SearchRegressionTest.read(instance));
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            FC solver = cbj(csp);
+            boolean found = fc.solve();
+            assertEquals(found, solver.solve(), instance);
+            assertTrue(solver.getNodesVisited() <= fc.getNodesVisited(), instance + " nodes");
+
+            if (found) {
+                SearchRegressionTest.assertSolution(csp, solver.getSolution());
+            }
+        }
+    }
+
+    @Test
+    public void sameSolutionCounts() {
+        for (String instance : new String[] {"8Queens", "10Queens", "langfords3_9", "langfords2_9"}) {
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            long expected = new FC(SearchRegressionTest.read(instance)).solveAll(null);
+            assertEquals(expected, cbj(csp).solveAll(solution -> SearchRegressionTest.assertSolution(csp, solution)), instance);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Batch mode prints exactly one JSON line per instance on stdout, whose status is the one the search proved or the limit it hit.
+ */
+
+public class BatchSolverTest {
+    @TempDir
+    Path directory;
+
+    //runs a batch and returns its lines by instance, checking that stdout holds nothing else
+    private static Map<String, String> run(String... args) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        try {
+            System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+            BatchSolver.main(args);
+        } finally {
+            System.setOut(out);
+        }
+
+        Map<String, String> lines = new HashMap<>();
+
+        for (String line : buffer.toString(StandardCharsets.UTF_8).split("\n")) {
+            assertTrue(line.startsWith("{\"instance\": \"") && line.endsWith("}"), line);
+            lines.put(line.substring(14, line.indexOf('"', 14)), line);
+        }
+
+        return lines;
+    }
+
+    private static void assertStatus(Map<String, String> lines, String instance, String status) {
+        assertTrue(lines.get(instance).contains("\"status\": \"" + status + "\""), lines.get(instance));
+    }
+
+    @Test
+    public void statusOfEveryInstance() throws IOException {
+        Path bad = directory.resolve("bad.csp");
+        Files.writeString(bad, "2\n0, 1\n0, 1\n0, 1\nc(0, 1)\n1, 0\n");
+        Map<String, String> lines = run("--threads", "2", "instances/8Queens.csp", "instances/langfords3_4.csp", bad.toString());
+        assertEquals(3, lines.size());
+        assertStatus(lines, "instances/8Queens.csp", "SAT");
+        assertStatus(lines, "instances/langfords3_4.csp", "UNSAT");
+        assertStatus(lines, bad.toString(), "ERROR");
+        assertTrue(lines.get(bad.toString()).contains("Tuple before the first constraint at byte 12"), lines.get(bad.toString()));
+        assertTrue(lines.get("instances/8Queens.csp").contains("\"solution\": [0, 4, 7, 5, 2, 6, 1, 3]"));
+    }
+
+    @Test
+    public void nodeLimit() {
+        Map<String, String> lines = run("--algorithm", "fc", "--node-limit", "100", "instances/langfords2_9.csp", "instances/langfords3_4.csp");
+        assertStatus(lines, "instances/langfords2_9.csp", "NODE_LIMIT");
+        assertTrue(lines.get("instances/langfords2_9.csp").contains("\"nodes\": 100,"), lines.get("instances/langfords2_9.csp"));
+        assertStatus(lines, "instances/langfords3_4.csp", "UNSAT");
+    }
+}
@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Malformed csp files are rejected with an error instead of crashing the reader.
+ */
+
+public class BinaryCSPReaderTest {
+    @TempDir
+    Path directory;
+
+    private BinaryCSP read(String text) throws IOException {
+        Path file = directory.resolve("test.csp");
+        Files.writeString(file, text);
+        return new BinaryCSPReader().readBinaryCSP(file.toString());
+    }
+
+    @Test
+    public void readsTuplesAndRelations() throws IOException {
+        BinaryCSP csp = read("3\n0, 1\n0, 1\n0, 1\nc(0, 1)\n0, 1\n1, 0\nc(1, 2)\nne\n");
+        assertNotNull(csp);
+        assertEquals(2, csp.getConstraints().size());
+    }
+
+    @Test
+    public void rejectsTupleBeforeFirstConstraint() throws IOException {
+        assertNull(read("2\n0, 1\n0, 1\n0, 1\nc(0, 1)\n1, 0\n"));
+    }
+
+    @Test
+    public void rejectsTupleAfterIntensionalRelation() throws IOException {
+        assertNull(read("2\n0, 1\n0, 1\nc(0, 1)\nne\n0, 1\n"));
+    }
+
+    @Test
+    public void readThrowsWithTheCause() throws IOException {
+        Path file = directory.resolve("bad.csp");
+        Files.writeString(file, "2\n0, 1\n0, 1\n0, 1\nc(0, 1)\n1, 0\n");
+        IOException e = assertThrows(IOException.class, () -> new BinaryCSPReader().read(file.toString()));
+        assertEquals("Tuple before the first constraint at byte 12", e.getMessage());
+    }
+
+    @Test
+    public void rejectsConstraintOfAVariableWithItself() throws IOException {
+        Path file = directory.resolve("loop.csp");
+        Files.writeString(file, "2\n0, 1\n0, 1\nc(0, 1)\nne\nc(1, 1)\n0, 0\n");
+        IOException e = assertThrows(IOException.class, () -> new BinaryCSPReader().read(file.toString()));
+        assertEquals("Constraint of variable 1 with itself at byte 23", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new BinaryCSP(new int[][] {{0, 1}, {0, 1}},
+                new ArrayList<>(List.of(BinaryConstraint.notEqual(0, 0)))));
+    }
+}
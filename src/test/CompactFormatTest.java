@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Writing an instance to .cspb and mapping it back must give the same CSP: the same variables, constraints and allowed pairs,
+ * and so the same search.
+ */
+
+public class CompactFormatTest {
+    @TempDir
+    Path directory;
+
+    private BinaryCSP roundTrip(BinaryCSP csp) throws IOException {
+        String file = directory.resolve("instance.cspb").toString();
+        new BinaryCSPWriter().writeBinaryCSP(csp, file);
+        return new BinaryCSPReader().read(file);
+    }
+
+    private static void assertSameCSP(BinaryCSP expected, BinaryCSP actual) {
+        assertEquals(expected.getNoVariables(), actual.getNoVariables());
+
+        for (int x = 0; x < expected.getNoVariables(); x++) {
+            assertEquals(expected.getLB(x), actual.getLB(x));
+            assertEquals(expected.getUB(x), actual.getUB(x));
+        }
+
+        assertEquals(expected.getConstraints().size(), actual.getConstraints().size());
+
+        for (int k = 0; k < expected.getConstraints().size(); k++) {
+            BinaryConstraint first = expected.getConstraints().get(k);
+            BinaryConstraint second = actual.getConstraints().get(k);
+            int x = first.getFirstVar();
+            int y = first.getSecondVar();
+            assertEquals(x, second.getFirstVar());
+            assertEquals(y, second.getSecondVar());
+
+            for (int a = expected.getLB(x); a <= expected.getUB(x); a++) {
+                for (int b = expected.getLB(y); b <= expected.getUB(y); b++) {
+                    int val = a;
+                    int otherVal = b;
+                    assertEquals(first.allows(a, b), second.allows(a, b), () -> "c(" + x + ", " + y + ") " + val + ", " + otherVal);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void everyBundledInstanceRoundTrips() throws IOException {
+        File[] files = new File("instances").listFiles((d, name) -> name.endsWith(".csp"));
+
+        for (File file : files) {
+            BinaryCSP csp = new BinaryCSPReader().read(file.getPath());
+            assertSameCSP(csp, roundTrip(csp));
+        }
+    }
+
+    @Test
+    public void sameSearchFromEitherFormat() throws IOException {
+        for (String instance : new String[] {"8Queens", "langfords3_9", "FinnishSudoku", "langfords3_4"}) {
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            BinaryCSP compact = roundTrip(csp);
+            MAC text = new MAC(csp);
+            MAC binary = new MAC(compact);
+            assertEquals(text.solve(), binary.solve(), instance);
+            assertEquals(text.getNodesVisited(), binary.getNodesVisited(), instance + " nodes");
+            assertEquals(new FC(csp).solveAll(null), new FC(compact).solveAll(null), instance + " solutions");
+        }
+    }
+
+    //relations are written as the tuples they allow
+    @Test
+    public void intensionalConstraintsRoundTrip() throws IOException {
+        Path file = directory.resolve("relations.csp");
+        Files.writeString(file, "3\n0, 3\n0, 3\n-1, 2\nc(0, 1)\nne\nc(1, 2)\noffset -1\nc(0, 2)\ndiff 0 2 -2\n");
+        BinaryCSP csp = new BinaryCSPReader().read(file.toString());
+        BinaryCSP compact = roundTrip(csp);
+        assertSameCSP(csp, compact);
+        assertEquals(BinaryConstraint.Kind.EXTENSIONAL, compact.getConstraints().get(0).getKind());
+        assertEquals(new MAC(csp).solveAll(null), new MAC(compact).solveAll(null));
+    }
+
+    @Test
+    public void rejectsAnotherVersion() throws IOException {
+        String file = directory.resolve("instance.cspb").toString();
+        new BinaryCSPWriter().writeBinaryCSP(SearchRegressionTest.read("8Queens"), file);
+        byte[] bytes = Files.readAllBytes(Path.of(file));
+        bytes[4] = 99;
+        Files.write(Path.of(file), bytes);
+        assertThrows(IOException.class, () -> new BinaryCSPReader().read(file));
+    }
+}
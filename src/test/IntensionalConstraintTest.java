@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Constraints given by a relation (ne, diff, offset) must allow exactly what the equivalent tuples allow, so an instance written
+ * both ways has the same solutions under FC and MAC.
+ */
+
+public class IntensionalConstraintTest {
+    @TempDir
+    Path directory;
+
+    private BinaryCSP read(String text) throws IOException {
+        Path file = directory.resolve("test.csp");
+        Files.writeString(file, text);
+        BinaryCSP csp = new BinaryCSPReader().read(file.toString());
+        assertNotNull(csp);
+        return csp;
+    }
+
+    private static void assertCounts(BinaryCSP csp, long solutions) {
+        assertEquals(solutions, new FC(csp).solveAll(solution -> SearchRegressionTest.assertSolution(csp, solution)), "FC");
+        assertEquals(solutions, new MAC(csp).solveAll(solution -> SearchRegressionTest.assertSolution(csp, solution)), "MAC");
+    }
+
+    //n queens with one diff relation per pair of rows
+    private static String queens(int n) {
+        StringBuilder text = new StringBuilder(n + "\n");
+
+        for (int i = 0; i < n; i++) {
+            text.append("0, ").append(n - 1).append("\n");
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                text.append("c(").append(i).append(", ").append(j).append(")\ndiff 0 ").append(j - i).append(" ").append(i - j).append("\n");
+            }
+        }
+
+        return text.toString();
+    }
+
+    @Test
+    public void diffQueensMatchTheTuples() throws IOException {
+        BinaryCSP csp = read(queens(8));
+        assertEquals(BinaryConstraint.Kind.DIFFERENCE, csp.getConstraints().get(0).getKind());
+        assertCounts(csp, 92);
+        assertCounts(read(queens(10)), new MAC(SearchRegressionTest.read("10Queens")).solveAll(null));
+    }
+
+    @Test
+    public void notEqualIsAllDifferent() throws IOException {
+        StringBuilder text = new StringBuilder("4\n0, 3\n0, 3\n0, 3\n0, 3\n");
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                text.append("c(").append(i).append(", ").append(j).append(")\nne\n");
+            }
+        }
+
+        assertCounts(read(text.toString()), 24);
+        assertCounts(read("3\n0, 1\n0, 1\n0, 1\nc(0, 1)\nne\nc(1, 2)\nne\nc(0, 2)\nne\n"), 0);
+    }
+
+    @Test
+    public void offsetFixesTheDifference() throws IOException {
+        BinaryCSP csp = read("3\n0, 3\n0, 3\n0, 3\nc(0, 1)\noffset 1\nc(1, 2)\noffset -2\n");
+        assertCounts(csp, 2);   //x1 = x0 + 1 and x2 = x1 - 2 leave (1, 2, 0) and (2, 3, 1)
+        MAC solver = new MAC(csp);
+        assertTrue(solver.solve());
+        assertEquals("[1, 2, 0]", Arrays.toString(solver.getSolution()));
+    }
+
+    //a variable assigned a negative value still counts as assigned
+    @Test
+    public void negativeValues() throws IOException {
+        BinaryCSP csp = read("3\n0, 3\n0, 3\n-1, 2\nc(0, 1)\nne\nc(1, 2)\noffset -1\nc(0, 2)\ndiff 0 2 -2\n");
+        assertCounts(csp, 5);
+        FC solver = new FC(csp);
+        assertTrue(solver.solve());
+        SearchRegressionTest.assertSolution(csp, solver.getSolution());
+    }
+
+    //a difference only prunes once the other domain has no more values than it has differences
+    @Test
+    public void canPrune() {
+        BinaryConstraint ne = BinaryConstraint.notEqual(0, 1);
+        BinaryConstraint diff = BinaryConstraint.difference(0, 1, 0, 1, -1);
+        Domain domain = new Domain(0, 3);
+        assertFalse(ne.canPrune(domain));
+        assertFalse(diff.canPrune(domain));
+        domain.remove(0);
+        assertTrue(diff.canPrune(domain));
+        domain.remove(1);
+        domain.remove(2);
+        assertTrue(ne.canPrune(domain));
+        assertTrue(BinaryConstraint.offset(0, 1, 1).canPrune(new Domain(0, 3)));
+    }
+}
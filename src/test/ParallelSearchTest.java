@@ -0,0 +1,48 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/*
+ * The subproblems of the parallel search partition the search tree, so it must find a solution exactly when the sequential
+ * search does and count exactly the same solutions, whichever solver searches the subproblems.
+ */
+
+public class ParallelSearchTest {
+    private static final int WORKERS = 4;
+
+    @Test
+    public void firstSolution() {
+        String[] instances = {"8Queens", "20Queens", "FinnishSudoku", "langfords3_10", "langfords3_4", "Sudoku3"};
+
+        for (String instance : instances) {
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            boolean expected = new MAC(SearchRegressionTest.read(instance)).solve();
+            ParallelSearch fc = new ParallelSearch(csp, FC::new, WORKERS);
+            ParallelSearch mac = new ParallelSearch(csp, MAC::new, WORKERS);
+            assertEquals(expected, fc.solve(), instance + " FC");
+            assertEquals(expected, mac.solve(), instance + " MAC");
+
+            if (expected) {
+                SearchRegressionTest.assertSolution(csp, fc.getSolution());
+                SearchRegressionTest.assertSolution(csp, mac.getSolution());
+            }
+        }
+    }
+
+    @Test
+    public void solutionCounts() {
+        for (String instance : new String[] {"8Queens", "10Queens", "langfords3_9", "langfords2_9"}) {
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            long expected = new MAC(SearchRegressionTest.read(instance)).solveAll(null);
+            AtomicLong reported = new AtomicLong();
+            long count = new ParallelSearch(csp, MAC::new, WORKERS).solveAll(solution -> {
+                SearchRegressionTest.assertSolution(csp, solution);
+                reported.incrementAndGet();
+            });
+            assertEquals(expected, count, instance + " MAC");
+            assertEquals(expected, reported.get(), instance + " solutions reported");
+            assertEquals(expected, new ParallelSearch(csp, FC::new, WORKERS).solveAll(null), instance + " FC");
+        }
+    }
+}
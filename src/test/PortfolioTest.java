@@ -0,0 +1,41 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Whichever configuration of the portfolio finishes first, its answer must be the one the sequential search gives.
+ */
+
+public class PortfolioTest {
+    @Test
+    public void agreesWithSequentialSearch() throws InterruptedException {
+        String[] instances = {"8Queens", "20Queens", "FinnishSudoku", "langfords3_10", "langfords3_4", "Sudoku3"};
+
+        for (String instance : instances) {
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            boolean expected = new MAC(SearchRegressionTest.read(instance)).solve();
+            Portfolio portfolio = Portfolio.defaultPortfolio(csp, VariableHeuristic.Type.DOM, ValueHeuristic.Type.LEX,
+                    RestartSchedule.NONE, 0);
+            assertEquals(expected, portfolio.solve(), instance + " " + portfolio.getWinnerName());
+
+            if (expected) {
+                SearchRegressionTest.assertSolution(csp, portfolio.getWinner().getSolution());
+            }
+        }
+    }
+
+    @Test
+    public void agreesWithRestartsAndRandomValues() throws InterruptedException {
+        for (String instance : new String[] {"langfords3_9", "langfords2_9"}) {
+            BinaryCSP csp = SearchRegressionTest.read(instance);
+            boolean expected = new MAC(SearchRegressionTest.read(instance)).solve();
+            Portfolio portfolio = Portfolio.defaultPortfolio(csp, VariableHeuristic.Type.DOM_WDEG, ValueHeuristic.Type.RANDOM,
+                    RestartSchedule.LUBY, 42);
+            assertEquals(expected, portfolio.solve(), instance + " " + portfolio.getWinnerName());
+
+            if (expected) {
+                SearchRegressionTest.assertSolution(csp, portfolio.getWinner().getSolution());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Preprocessing only removes values that belong to no solution, so the reduced CSP must have exactly the solutions of the
+ * original one. SAC-1 and SAC-Opt compute the same fixpoint, and every stage removes at least what arc consistency removes.
+ */
+
+public class PreprocessingTest {
+    private static final String[] INSTANCES = {"8Queens", "10Queens", "langfords3_9", "langfords2_9", "langfords3_4", "Sudoku3"};
+
+    private static Preprocessing pipeline(Preprocessor.Type... stages) {
+        Preprocessing preprocessing = new Preprocessing();
+
+        for (Preprocessor.Type stage : stages) {
+            preprocessing.add(stage);
+        }
+
+        return preprocessing;
+    }
+
+    private static void assertSubset(BinaryCSP smaller, BinaryCSP larger, String message) {
+        for (int x = 0; x < larger.getNoVariables(); x++) {
+            Domain domain = smaller.getDomain(x);
+
+            for (int val = domain.min(); val != Domain.NONE; val = domain.next(val)) {
+                assertTrue(larger.getDomain(x).contains(val), message + ": " + x + " = " + val);
+            }
+        }
+    }
+
+    @Test
+    public void sameSolutions() {
+        for (String instance : INSTANCES) {
+            long expected = new MAC(SearchRegressionTest.read(instance)).solveAll(null);
+
+            for (Preprocessor.Type stage : Preprocessor.Type.values()) {
+                Preprocessing preprocessing = pipeline(stage);
+                BinaryCSP reduced = preprocessing.run(SearchRegressionTest.read(instance));
+                long count = new FC(reduced).solveAll(solution -> SearchRegressionTest.assertSolution(reduced, solution));
+                assertEquals(expected, count, instance + " " + stage);
+
+                if (!preprocessing.isConsistent()) {
+                    assertEquals(0, expected, instance + " " + stage + " wiped out a domain");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void strongerThanArcConsistency() {
+        for (String instance : INSTANCES) {
+            BinaryCSP ac = pipeline(Preprocessor.Type.AC).run(SearchRegressionTest.read(instance));
+            BinaryCSP sac1 = pipeline(Preprocessor.Type.SAC1).run(SearchRegressionTest.read(instance));
+            BinaryCSP sacOpt = pipeline(Preprocessor.Type.SAC_OPT).run(SearchRegressionTest.read(instance));
+            BinaryCSP rpc = pipeline(Preprocessor.Type.RPC).run(SearchRegressionTest.read(instance));
+            assertSubset(sac1, ac, instance + " SAC-1");
+            assertSubset(rpc, ac, instance + " RPC");
+            assertSubset(sac1, sacOpt, instance + " SAC-1 and SAC-Opt");
+            assertSubset(sacOpt, sac1, instance + " SAC-Opt and SAC-1");
+        }
+    }
+
+    //a pipeline cancelled before it runs skips its stages but still builds the CSP
+    @Test
+    public void cancelledBeforeRunning() {
+        Preprocessing preprocessing = pipeline(Preprocessor.Type.SAC1);
+        preprocessing.cancel();
+        BinaryCSP reduced = preprocessing.run(SearchRegressionTest.read("8Queens"));
+        assertTrue(preprocessing.isConsistent());
+        assertEquals(92, new MAC(reduced).solveAll(null));
+    }
+}
@@ -0,0 +1,46 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * MAC reaches the same arc consistent domains whichever way it checks for supports, so AC3, AC3rm, AC2001 and the single-word
+ * bit-parallel AC3bit must visit the same nodes and find the same solutions.
+ */
+
+public class PropagatorTest {
+    private static final String[] INSTANCES = {"8Queens", "20Queens", "FinnishSudoku", "langfords3_9", "langfords3_10", "Sudoku3"};
+
+    @Test
+    public void sameNodesAsAC3bit() {
+        for (String instance : INSTANCES) {
+            MAC reference = new MAC(SearchRegressionTest.read(instance), MAC.Propagator.AC3_BIT);
+            boolean found = reference.solve();
+
+            for (MAC.Propagator propagator : MAC.Propagator.values()) {
+                BinaryCSP csp = SearchRegressionTest.read(instance);
+                MAC solver = new MAC(csp, propagator);
+                assertEquals(found, solver.solve(), instance + " " + propagator);
+                assertEquals(reference.getNodesVisited(), solver.getNodesVisited(), instance + " " + propagator + " nodes");
+
+                if (found) {
+                    SearchRegressionTest.assertSolution(csp, solver.getSolution());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameSolutionCounts() {
+        for (String instance : new String[] {"8Queens", "10Queens", "langfords3_9", "langfords2_9"}) {
+            long expected = new MAC(SearchRegressionTest.read(instance), MAC.Propagator.AC3_BIT).solveAll(null);
+
+            for (MAC.Propagator propagator : MAC.Propagator.values()) {
+                BinaryCSP csp = SearchRegressionTest.read(instance);
+                long count = new MAC(csp, propagator).solveAll(solution -> SearchRegressionTest.assertSolution(csp, solution));
+                assertEquals(expected, count, instance + " " + propagator + " solutions");
+            }
+        }
+
+        assertEquals(92, new MAC(SearchRegressionTest.read("8Queens"), MAC.Propagator.AC2001).solveAll(null));
+    }
+}
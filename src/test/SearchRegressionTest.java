@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Solution and node counts of FC and MAC on the bundled instances with the default options.
+ * A change that alters the search order changes the node counts here, and must say why when it updates them.
+ * These counts differ from those of the original list-based solvers, which compared domain sizes copied when a node's list of
+ * future variables was built. A right branch reused the list of its parent, so smallest domain first missed the value just
+ * deleted and its pruning. Reading the bitset domains live changed the order: FC 20Queens went from 131944 nodes to 142 and
+ * langfords3_10 from 56 to 6676, MAC 8Queens from 25 to 36. Fixing the arc queue of MAC then took 8Queens down to 18.
+ */
+
+public class SearchRegressionTest {
+    static BinaryCSP read(String instance) {
+        BinaryCSP csp = new BinaryCSPReader().readBinaryCSP("instances/" + instance + ".csp");
+        assertNotNull(csp, instance);
+        return csp;
+    }
+
+    //checks every constraint of the instance against the solution
+    static void assertSolution(BinaryCSP csp, int[] solution) {
+        assertNotNull(solution);
+
+        for (BinaryConstraint constraint : csp.getConstraints()) {
+            assertTrue(constraint.allows(solution[constraint.getFirstVar()], solution[constraint.getSecondVar()]), constraint.toString());
+        }
+    }
+
+    private static void assertFirstSolution(String instance, Function<BinaryCSP, SearchAlgorithm> factory, int nodes) {
+        BinaryCSP csp = read(instance);
+        SearchAlgorithm solver = factory.apply(csp);
+        assertTrue(solver.solve(), instance);
+        assertSolution(csp, solver.getSolution());
+        assertEquals(nodes, solver.getNodesVisited(), instance + " nodes");
+    }
+
+    private static void assertSolutionCount(String instance, Function<BinaryCSP, SearchAlgorithm> factory, long solutions) {
+        BinaryCSP csp = read(instance);
+        assertEquals(solutions, factory.apply(csp).solveAll(solution -> assertSolution(csp, solution)), instance + " solutions");
+    }
+
+    @Test
+    public void fcNodeCounts() {
+        assertFirstSolution("8Queens", FC::new, 71);
+        assertFirstSolution("20Queens", FC::new, 142);
+        assertFirstSolution("FinnishSudoku", FC::new, 10122);
+        assertFirstSolution("langfords3_10", FC::new, 6676);
+    }
+
+    @Test
+    public void macNodeCounts() {
+        assertFirstSolution("8Queens", MAC::new, 18);
+        assertFirstSolution("20Queens", MAC::new, 45);
+        assertFirstSolution("FinnishSudoku", MAC::new, 2917);
+        assertFirstSolution("langfords3_10", MAC::new, 1445);
+    }
+
+    @Test
+    public void solutionCounts() {
+        assertSolutionCount("8Queens", FC::new, 92);
+        assertSolutionCount("8Queens", MAC::new, 92);
+        assertSolutionCount("langfords3_9", FC::new, 6);
+        assertSolutionCount("langfords3_9", MAC::new, 6);
+    }
+
+    @Test
+    public void unsatisfiable() {
+        for (String instance : new String[] {"langfords2_9", "langfords3_4", "Sudoku3"}) {
+            assertFalse(new FC(read(instance)).solve(), instance);
+            assertFalse(new MAC(read(instance)).solve(), instance);
+            assertEquals(0, new MAC(read(instance)).solveAll(null), instance);
+        }
+    }
+}
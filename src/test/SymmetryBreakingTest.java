@@ -0,0 +1,71 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/*
+ * Solution counts with the symmetries broken: one solution per class of symmetric solutions, with or without restarts.
+ */
+
+public class SymmetryBreakingTest {
+    //counts the solutions found, checking that no two of them are symmetric
+    private static long countSolutions(String instance, boolean fc, RestartSchedule restarts) throws IOException {
+        BinaryCSP csp = SearchRegressionTest.read(instance);
+        List<Symmetry> group = Symmetry.read(Symmetry.fileFor("instances/" + instance + ".csp"), csp);
+        List<int[]> solutions = new ArrayList<>();
+        SearchAlgorithm solver;
+
+        if (fc) {
+            FC fcSolver = new FC(csp);
+            fcSolver.setRestarts(restarts);
+            fcSolver.setSymmetryBreaking(group);
+            solver = fcSolver;
+        } else {
+            MAC macSolver = new MAC(csp);
+            macSolver.setRestarts(restarts);
+            macSolver.setSymmetryBreaking(group);
+            solver = macSolver;
+        }
+
+        long count = solver.solveAll(solution -> solutions.add(solution.clone()));
+
+        for (int[] solution : solutions) {
+            SearchRegressionTest.assertSolution(csp, solution);
+
+            for (Symmetry symmetry : group) {
+                int[] image = new int[solution.length];
+
+                for (int var = 0; var < solution.length; var++) {
+                    image[symmetry.imageVar(var, solution[var])] = symmetry.imageVal(var, solution[var]);
+                }
+
+                for (int[] other : solutions) {
+                    if (other != solution && Arrays.equals(image, other)) {
+                        throw new AssertionError(Arrays.toString(solution) + " and " + Arrays.toString(other) + " are symmetric");
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    @Test
+    public void sbds() throws IOException {
+        assertEquals(12, countSolutions("8Queens", false, RestartSchedule.NONE));
+        assertEquals(12, countSolutions("8Queens", true, RestartSchedule.NONE));
+        assertEquals(3, countSolutions("langfords3_9", false, RestartSchedule.NONE));
+    }
+
+    @Test
+    public void sbdsWithRestarts() throws IOException {
+        assertEquals(12, countSolutions("8Queens", false, RestartSchedule.LUBY));
+        assertEquals(12, countSolutions("8Queens", true, RestartSchedule.LUBY));
+        assertEquals(12, countSolutions("8Queens", false, RestartSchedule.GEOMETRIC));
+        assertEquals(92, countSolutions("10Queens", false, RestartSchedule.LUBY));
+        assertEquals(3, countSolutions("langfords3_9", true, RestartSchedule.LUBY));
+    }
+}